@@ -0,0 +1,201 @@
+package org.example.carsharingapp.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache whose entries expire after a fixed time to live.
+ * When the size limit is exceeded expired entries are purged first, then the
+ * entries closest to expiry. Every invalidation advances the generation of its
+ * key, and a value loaded before an invalidation is not stored afterwards, so a
+ * load racing with a change can't bring the old value back until expiry.
+ */
+public class ExpiringCache<K, V> {
+
+    private static final double SHRINK_FACTOR = 0.9;
+    private static final int GENERATION_STRIPES = 64;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final int maximumSize;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maximumSize, Duration timeToLive) {
+        this(maximumSize, timeToLive, Clock.systemUTC());
+    }
+
+    public ExpiringCache(int maximumSize, Duration timeToLive, Clock clock) {
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    public Optional<V> getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (entry.isExpired(clock.millis())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.value());
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Optional<V> cached = getIfPresent(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long generation = generation(key);
+        V value = loader.apply(key);
+        if (value != null) {
+            putIfGeneration(key, value, generation);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the invalidation generation of the key. Capture it before loading a
+     * value and store the value with {@link #putIfGeneration}.
+     */
+    public long generation(K key) {
+        return generations.get(stripeFor(key));
+    }
+
+    public boolean putIfGeneration(K key, V value, long generation) {
+        Entry<V> created = new Entry<>(value, expiresAt(clock.instant().plus(timeToLive)));
+        Entry<V> stored = entries.compute(key, (k, current) ->
+                generation(key) == generation ? created : current);
+
+        if (stored != created) {
+            return false;
+        }
+        puts.increment();
+        evictIfNecessary();
+        return true;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, clock.instant().plus(timeToLive));
+    }
+
+    public void put(K key, V value, Instant expiresAt) {
+        entries.put(key, new Entry<>(value, expiresAt(expiresAt)));
+        puts.increment();
+        evictIfNecessary();
+    }
+
+    public Optional<V> putIfAbsent(K key, V value) {
+        long now = clock.millis();
+        Entry<V> created = new Entry<>(value, expiresAt(clock.instant().plus(timeToLive)));
+        Entry<V> existing = entries.compute(key, (k, current) ->
+                current == null || current.isExpired(now) ? created : current);
+
+        if (existing == created) {
+            puts.increment();
+            evictIfNecessary();
+            return Optional.empty();
+        }
+        return Optional.of(existing.value());
+    }
+
+    public void invalidate(K key) {
+        generations.incrementAndGet(stripeFor(key));
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        entries.clear();
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private int stripeFor(K key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), GENERATION_STRIPES);
+    }
+
+    private long expiresAt(Instant requested) {
+        long maximum = clock.millis() + timeToLive.toMillis();
+        return Math.min(requested.toEpochMilli(), maximum);
+    }
+
+    private void evictIfNecessary() {
+        if (entries.size() <= maximumSize) {
+            return;
+        }
+        synchronized (this) {
+            if (entries.size() <= maximumSize) {
+                return;
+            }
+            long now = clock.millis();
+            entries.entrySet().removeIf(entry -> {
+                boolean expired = entry.getValue().isExpired(now);
+                if (expired) {
+                    evictions.increment();
+                }
+                return expired;
+            });
+
+            int target = (int) (maximumSize * SHRINK_FACTOR);
+            if (entries.size() <= target) {
+                return;
+            }
+            List<Map.Entry<K, Entry<V>>> oldest = new ArrayList<>(entries.entrySet());
+            oldest.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAt()));
+            for (int i = 0; i < oldest.size() - target; i++) {
+                if (entries.remove(oldest.get(i).getKey(), oldest.get(i).getValue())) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
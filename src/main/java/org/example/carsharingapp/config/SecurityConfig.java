@@ -43,6 +43,7 @@ public class SecurityConfig {
                                         "/payments/success",
                                         "/payments/success/**",
                                         "/payments/cancel",
+                                        "/payments/webhook",
                                         "/cars/all",
                                         "/swagger-ui/**",
                                         "/v3/api-docs/**",
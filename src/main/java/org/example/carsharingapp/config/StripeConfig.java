@@ -0,0 +1,31 @@
+package org.example.carsharingapp.config;
+
+import com.stripe.StripeClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StripeConfig {
+
+    /**
+     * Single client for all Stripe calls, so the API key is never written to the
+     * static {@code Stripe.apiKey}. Requests go through the JDK HTTP client, which
+     * keeps idle connections to the API host alive and reuses them between calls.
+     */
+    @Bean
+    public StripeClient stripeClient(
+            @Value("${stripe.secret.key}") String secretKey,
+            @Value("${stripe.api-base:https://api.stripe.com}") String apiBase,
+            @Value("${stripe.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${stripe.read-timeout-ms:20000}") int readTimeoutMs,
+            @Value("${stripe.max-network-retries:2}") int maxNetworkRetries) {
+        return StripeClient.builder()
+                .setApiKey(secretKey)
+                .setApiBase(apiBase)
+                .setConnectTimeout(connectTimeoutMs)
+                .setReadTimeout(readTimeoutMs)
+                .setMaxNetworkRetries(maxNetworkRetries)
+                .build();
+    }
+}
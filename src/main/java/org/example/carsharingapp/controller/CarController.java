@@ -4,16 +4,28 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.carsharingapp.dto.CarAvailabilityDto;
+import org.example.carsharingapp.dto.CarImportResultDto;
 import org.example.carsharingapp.dto.CarRequestDto;
 import org.example.carsharingapp.dto.CarResponseDto;
 import org.example.carsharingapp.dto.CarResponseLiteDto;
+import org.example.carsharingapp.model.TypeName;
 import org.example.carsharingapp.security.annotation.IsCustomer;
 import org.example.carsharingapp.security.annotation.IsManager;
+import org.example.carsharingapp.service.CarCatalogVersion;
+import org.example.carsharingapp.service.CarImportService;
 import org.example.carsharingapp.service.CarService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
 
 @Tag(name = "Cars Controller", description = "Managing car inventory")
 @RestController
@@ -21,7 +33,14 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class CarController {
 
+    private static final CacheControl PUBLIC_CATALOG_CACHE = CacheControl.noCache().cachePublic();
+    private static final CacheControl PRIVATE_CATALOG_CACHE = CacheControl.noCache().cachePrivate();
+
+    private static final String NDJSON = "application/x-ndjson";
+
     private final CarService carService;
+    private final CarImportService carImportService;
+    private final CarCatalogVersion catalogVersion;
 
     @IsManager
     @PostMapping
@@ -30,17 +49,73 @@ public class CarController {
         return carService.addNewCar(requestDto);
     }
 
+    @IsManager
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @Operation(
+            summary = "Import cars from CSV",
+            description = "Add a fleet from CSV with columns model, brand, type, "
+                    + "available_cars, daily_price; matching cars get their counts increased"
+    )
+    public CarImportResultDto importCarsFromCsv(InputStream body) {
+        return carImportService.importCars(body, CarImportService.Format.CSV);
+    }
+
+    @IsManager
+    @PostMapping(value = "/import", consumes = NDJSON)
+    @Operation(
+            summary = "Import cars from NDJSON",
+            description = "Add a fleet from one car request object per line; "
+                    + "matching cars get their counts increased"
+    )
+    public CarImportResultDto importCarsFromNdjson(InputStream body) {
+        return carImportService.importCars(body, CarImportService.Format.NDJSON);
+    }
+
     @GetMapping()
     @Operation(summary = "List of all cars", description = "Get a list off all cars")
-    public Page<CarResponseLiteDto> getAllCars(Pageable pageable) {
-        return carService.getAllCars(pageable);
+    public ResponseEntity<Page<CarResponseLiteDto>> getAllCars(
+            Pageable pageable, WebRequest webRequest) {
+        CarCatalogVersion.Version version = catalogVersion.current();
+        if (isNotModified(webRequest, version)) {
+            return notModified(PUBLIC_CATALOG_CACHE);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(PUBLIC_CATALOG_CACHE)
+                .eTag(version.eTag())
+                .lastModified(version.lastModified())
+                .body(carService.getAllCars(pageable));
+    }
+
+    @GetMapping("/available")
+    @Operation(
+            summary = "Search available cars",
+            description = "Get cars with units free for the whole period, optionally of one type"
+    )
+    public Page<CarAvailabilityDto> getAvailableCars(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime rental_date,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime return_date,
+            @RequestParam(required = false) TypeName type,
+            Pageable pageable
+    ) {
+        return carService.getAvailableCars(rental_date, return_date, type, pageable);
     }
 
     @IsCustomer
     @GetMapping("/{id}")
     @Operation(summary = "Get cars info", description = "Get car's detailed information")
-    public CarResponseDto getSingleCarInfo(@PathVariable Long id) {
-        return carService.getSingleCarInfo(id);
+    public ResponseEntity<CarResponseDto> getSingleCarInfo(
+            @PathVariable Long id, WebRequest webRequest) {
+        CarCatalogVersion.Version version = catalogVersion.current();
+        if (isNotModified(webRequest, version)) {
+            return notModified(PRIVATE_CATALOG_CACHE);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(PRIVATE_CATALOG_CACHE)
+                .eTag(version.eTag())
+                .lastModified(version.lastModified())
+                .body(carService.getSingleCarInfo(id));
     }
 
     @IsManager
@@ -58,4 +133,14 @@ public class CarController {
     public void deleteCarById(@PathVariable Long id) {
        carService.deleteCarById(id);
     }
+
+    private boolean isNotModified(WebRequest webRequest, CarCatalogVersion.Version version) {
+        return webRequest.checkNotModified(version.eTag(), version.lastModified());
+    }
+
+    private <T> ResponseEntity<T> notModified(CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(cacheControl)
+                .build();
+    }
 }
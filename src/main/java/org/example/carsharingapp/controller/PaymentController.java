@@ -3,15 +3,22 @@ package org.example.carsharingapp.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.example.carsharingapp.dto.CursorPageDto;
 import org.example.carsharingapp.dto.PaymentResponseDto;
 import org.example.carsharingapp.dto.PaymentUrlResponseDto;
 import org.example.carsharingapp.security.annotation.IsCustomer;
+import org.example.carsharingapp.service.IdempotencyStore;
 import org.example.carsharingapp.service.PaymentService;
+import org.example.carsharingapp.service.StripeWebhookService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -23,6 +30,8 @@ import org.springframework.web.bind.annotation.RestController;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final StripeWebhookService stripeWebhookService;
+    private final IdempotencyStore idempotencyStore;
 
     @IsCustomer
     @GetMapping
@@ -37,6 +46,20 @@ public class PaymentController {
         return paymentService.getPayments(userId, pageable);
     }
 
+    @IsCustomer
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "Get payments (cursor)",
+            description = "Same as get payments, paged after an opaque cursor without total count"
+    )
+    public CursorPageDto<PaymentResponseDto> getPaymentsAfterCursor(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String cursor,
+            Pageable pageable
+    ) {
+        return paymentService.getPayments(userId, cursor, pageable.getPageSize());
+    }
+
 
     @IsCustomer
     @PostMapping("/{id}")
@@ -44,8 +67,30 @@ public class PaymentController {
             summary = "Create payment session",
             description = "New payment session by rental id"
     )
-    public PaymentUrlResponseDto createPaymentSessionByRentalId(@PathVariable Long id) {
-        return paymentService.createPaymentSessionByRentalId(id);
+    public PaymentUrlResponseDto createPaymentSessionByRentalId(
+            @PathVariable Long id,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            Authentication authentication
+    ) {
+        return idempotencyStore.execute(
+                "POST /payments/" + id + " " + authentication.getName(),
+                idempotencyKey,
+                id,
+                () -> paymentService.createPaymentSessionByRentalId(id)
+        );
+    }
+
+    @PostMapping("/webhook")
+    @Operation(
+            summary = "Stripe webhook",
+            description = "Receives signed Stripe events and stores payment status updates"
+    )
+    public ResponseEntity<Void> stripeWebhook(
+            @RequestBody String payload,
+            @RequestHeader("Stripe-Signature") String signatureHeader
+    ) {
+        stripeWebhookService.receive(payload, signatureHeader);
+        return ResponseEntity.ok().build();
     }
 
     /*
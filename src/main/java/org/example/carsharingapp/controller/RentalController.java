@@ -4,13 +4,16 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.carsharingapp.dto.CursorPageDto;
 import org.example.carsharingapp.dto.RentalRequestDto;
 import org.example.carsharingapp.dto.RentalResponseDto;
 import org.example.carsharingapp.security.annotation.IsCustomer;
 import org.example.carsharingapp.security.annotation.IsManager;
+import org.example.carsharingapp.service.IdempotencyStore;
 import org.example.carsharingapp.service.RentalService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @Tag(name = "Rentals Controller", description = "Managing rentals")
@@ -20,12 +23,22 @@ import org.springframework.web.bind.annotation.*;
 public class RentalController {
 
     private final RentalService rentalService;
+    private final IdempotencyStore idempotencyStore;
 
     @IsCustomer
     @PostMapping
     @Operation(summary = "Add new rental", description = "Add new rental for current user")
-    public RentalResponseDto addNewRental(@RequestBody @Valid RentalRequestDto rentalRequestDto) {
-        return rentalService.addNewRental(rentalRequestDto);
+    public RentalResponseDto addNewRental(
+            @RequestBody @Valid RentalRequestDto rentalRequestDto,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            Authentication authentication
+    ) {
+        return idempotencyStore.execute(
+                "POST /rentals " + authentication.getName(),
+                idempotencyKey,
+                rentalRequestDto,
+                () -> rentalService.addNewRental(rentalRequestDto)
+        );
     }
 
     @IsManager
@@ -39,6 +52,35 @@ public class RentalController {
         return rentalService.getRentalsByUserIdAndIsActive(user_id, is_active, pageable);
     }
 
+    @IsManager
+    @GetMapping(params = {"user_id", "cursor"})
+    @Operation(
+            summary = "Get rentals by user id (cursor)",
+            description = "Get rentals by param user_id after an opaque cursor, without total count"
+    )
+    public CursorPageDto<RentalResponseDto> getRentalsByUserIdAfterCursor(
+            @RequestParam(required = false) Long user_id,
+            @RequestParam(required = false) Boolean is_active,
+            @RequestParam(required = false) String cursor,
+            Pageable pageable
+    ) {
+        return rentalService.getRentalsByUserIdAndIsActive(
+                user_id, is_active, cursor, pageable.getPageSize());
+    }
+
+    @IsCustomer
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "Get rentals (cursor)",
+            description = "Get rentals by current user after an opaque cursor, without total count"
+    )
+    public CursorPageDto<RentalResponseDto> getRentalsByCurrentUserAfterCursor(
+            @RequestParam(required = false) String cursor,
+            Pageable pageable
+    ) {
+        return rentalService.getRentalByCurrentUser(cursor, pageable.getPageSize());
+    }
+
     @IsCustomer
     @GetMapping
     @Operation(summary = "Get rentals", description = "Get rentals by current user")
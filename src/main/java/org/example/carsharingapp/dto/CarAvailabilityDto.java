@@ -0,0 +1,13 @@
+package org.example.carsharingapp.dto;
+
+import java.math.BigDecimal;
+
+public record CarAvailabilityDto(
+        Long id,
+        String model,
+        String brand,
+        String type,
+        int availableCars,
+        BigDecimal dailyPrice
+) {
+}
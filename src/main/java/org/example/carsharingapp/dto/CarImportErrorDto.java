@@ -0,0 +1,7 @@
+package org.example.carsharingapp.dto;
+
+public record CarImportErrorDto(
+        long line,
+        String message
+) {
+}
@@ -0,0 +1,12 @@
+package org.example.carsharingapp.dto;
+
+import java.util.List;
+
+public record CarImportResultDto(
+        int rowsRead,
+        int rowsImported,
+        int carsCreated,
+        int carsUpdated,
+        List<CarImportErrorDto> errors
+) {
+}
@@ -0,0 +1,11 @@
+package org.example.carsharingapp.dto;
+
+import java.util.List;
+
+public record CursorPageDto<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {
+}
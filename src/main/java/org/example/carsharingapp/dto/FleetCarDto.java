@@ -0,0 +1,14 @@
+package org.example.carsharingapp.dto;
+
+import org.example.carsharingapp.model.TypeName;
+import java.math.BigDecimal;
+
+public record FleetCarDto(
+        Long id,
+        String model,
+        String brand,
+        TypeName type,
+        int availableCars,
+        BigDecimal dailyPrice
+) {
+}
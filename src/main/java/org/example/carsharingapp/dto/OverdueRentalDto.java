@@ -0,0 +1,12 @@
+package org.example.carsharingapp.dto;
+
+import java.time.LocalDateTime;
+
+public record OverdueRentalDto(
+        Long rentalId,
+        String email,
+        String brand,
+        String model,
+        LocalDateTime returnDate
+) {
+}
@@ -0,0 +1,10 @@
+package org.example.carsharingapp.dto;
+
+import org.example.carsharingapp.model.PaymentStatusName;
+
+public record PaymentStatusEventDto(
+        String eventId,
+        String sessionId,
+        PaymentStatusName status
+) {
+}
@@ -0,0 +1,11 @@
+package org.example.carsharingapp.dto;
+
+import java.time.LocalDateTime;
+
+public record RentalWindowDto(
+        Long rentalId,
+        Long carId,
+        LocalDateTime rentalDate,
+        LocalDateTime returnDate
+) {
+}
@@ -8,6 +8,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
@@ -37,6 +38,44 @@ public class CustomGlobalExceptionHandler extends ResponseEntityExceptionHandler
         return new ResponseEntity<>(body, headers, status);
     }
 
+    @ExceptionHandler({
+            InvalidCursorException.class,
+            InvalidImportFileException.class,
+            InvalidRentalPeriodException.class,
+            StripeWebhookException.class
+    })
+    protected ResponseEntity<Object> handleBadRequest(RuntimeException ex) {
+        return errorResponse(HttpStatus.BAD_REQUEST, ex);
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    protected ResponseEntity<Object> handleForbidden(RuntimeException ex) {
+        return errorResponse(HttpStatus.FORBIDDEN, ex);
+    }
+
+    @ExceptionHandler({
+            DuplicateCarException.class,
+            IdempotentRequestInProgressException.class,
+            ReturnRentalException.class
+    })
+    protected ResponseEntity<Object> handleConflict(RuntimeException ex) {
+        return errorResponse(HttpStatus.CONFLICT, ex);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    protected ResponseEntity<Object> handleUnprocessableEntity(RuntimeException ex) {
+        return errorResponse(HttpStatus.UNPROCESSABLE_ENTITY, ex);
+    }
+
+    private ResponseEntity<Object> errorResponse(HttpStatus status, RuntimeException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status);
+        body.put("errors", List.of(ex.getMessage()));
+
+        return new ResponseEntity<>(body, status);
+    }
+
     private Object getErrorMessage(ObjectError objectError) {
         if (objectError instanceof FieldError) {
             String field = ((FieldError) objectError).getField();
@@ -0,0 +1,7 @@
+package org.example.carsharingapp.exception;
+
+public class DuplicateCarException extends RuntimeException {
+    public DuplicateCarException(String message) {
+        super(message);
+    }
+}
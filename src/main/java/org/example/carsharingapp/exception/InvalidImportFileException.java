@@ -0,0 +1,7 @@
+package org.example.carsharingapp.exception;
+
+public class InvalidImportFileException extends RuntimeException {
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.carsharingapp.exception;
+
+public class InvalidRentalPeriodException extends RuntimeException {
+    public InvalidRentalPeriodException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.carsharingapp.exception;
+
+public class StripeWebhookException extends RuntimeException {
+    public StripeWebhookException(String message) {
+        super(message);
+    }
+}
@@ -3,11 +3,10 @@ package org.example.carsharingapp.mapper;
 import org.example.carsharingapp.config.MapperConfig;
 import org.example.carsharingapp.dto.CarRequestDto;
 import org.example.carsharingapp.dto.CarResponseDto;
-import org.example.carsharingapp.dto.CarResponseLiteDto;
 import org.example.carsharingapp.model.Car;
 import org.example.carsharingapp.model.CarType;
 import org.example.carsharingapp.model.TypeName;
-import org.example.carsharingapp.repository.CarTypeRepository;
+import org.example.carsharingapp.service.ReferenceDataRegistry;
 import org.mapstruct.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -15,7 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 public abstract class CarMapper {
 
     @Autowired
-    protected CarTypeRepository carTypeRepository;
+    protected ReferenceDataRegistry referenceData;
 
     @Mapping(target = "type", expression = "java(mapType(requestDto.type()))")
     @Mapping(target = "id", ignore = true)
@@ -25,13 +24,10 @@ public abstract class CarMapper {
     @Mapping(target = "type", expression = "java(car.getType() != null ? car.getType().getTypeName().toString() : null)")
     public abstract CarResponseDto toDto(Car car);
 
-    public abstract CarResponseLiteDto toLiteDto(Car car);
-
     protected CarType mapType(String type) {
         TypeName typeName = TypeName.fromString(type)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid type name: " + type));
 
-        return carTypeRepository.findByTypeName(typeName)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid car type: " + type));
+        return referenceData.carType(typeName);
     }
 }
@@ -19,7 +19,15 @@ import java.math.BigDecimal;
 public class Car {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cars_id")
+    @TableGenerator(
+            name = "cars_id",
+            table = "id_generators",
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = "cars",
+            allocationSize = 50
+    )
     private Long id;
 
     @NotNull
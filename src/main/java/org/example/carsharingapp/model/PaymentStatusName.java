@@ -2,5 +2,6 @@ package org.example.carsharingapp.model;
 
 public enum PaymentStatusName {
     PENDING,
-    PAID
+    PAID,
+    EXPIRED
 }
@@ -1,16 +1,43 @@
 package org.example.carsharingapp.repository;
 
+import org.example.carsharingapp.dto.CarResponseLiteDto;
+import org.example.carsharingapp.dto.FleetCarDto;
 import org.example.carsharingapp.model.Car;
 import org.example.carsharingapp.model.CarType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, CarUpsertRepository {
 
+    @EntityGraph(attributePaths = "type")
     Optional<Car> findByModelAndBrandAndTypeAndDailyPrice(
             String model,
             String brand,
             CarType type,
             BigDecimal dailyPrice);
+
+    @EntityGraph(attributePaths = "type")
+    Optional<Car> findWithTypeById(Long id);
+
+    @Query(value = """
+            SELECT new org.example.carsharingapp.dto.CarResponseLiteDto(c.id, c.model, c.brand)
+            FROM Car c
+            """,
+            countQuery = "SELECT COUNT(c) FROM Car c")
+    Page<CarResponseLiteDto> findAllLite(Pageable pageable);
+
+    @Query("""
+            SELECT new org.example.carsharingapp.dto.FleetCarDto(
+                c.id, c.model, c.brand, t.typeName, c.availableCars, c.dailyPrice)
+            FROM Car c
+            JOIN c.type t
+            ORDER BY c.id
+            """)
+    List<FleetCarDto> findFleet();
 }
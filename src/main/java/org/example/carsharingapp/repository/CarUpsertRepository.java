@@ -0,0 +1,14 @@
+package org.example.carsharingapp.repository;
+
+import org.example.carsharingapp.model.Car;
+import java.util.List;
+
+public interface CarUpsertRepository {
+
+    /**
+     * Inserts each car or, when a car with the same model, brand, type and daily price
+     * already exists, adds to its available cars in the same statement. A soft-deleted
+     * match is restored with the given count.
+     */
+    void upsertAll(List<Car> cars);
+}
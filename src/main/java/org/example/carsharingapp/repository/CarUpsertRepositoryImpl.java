@@ -0,0 +1,56 @@
+package org.example.carsharingapp.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.carsharingapp.model.Car;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+public class CarUpsertRepositoryImpl implements CarUpsertRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO cars
+                (id, model, brand, car_type_id, available_cars, daily_price, is_deleted)
+            VALUES (?, ?, ?, ?, ?, ?, false) AS incoming
+            ON DUPLICATE KEY UPDATE
+                available_cars = IF(cars.is_deleted, incoming.available_cars,
+                        cars.available_cars + incoming.available_cars),
+                is_deleted = false
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void upsertAll(List<Car> cars) {
+        if (cars.isEmpty()) {
+            return;
+        }
+        SharedSessionContractImplementor session =
+                entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator idGenerator = (BeforeExecutionGenerator) session
+                .getEntityPersister(Car.class.getName(), cars.get(0))
+                .getGenerator();
+
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT)) {
+                for (Car car : cars) {
+                    Long id = (Long) idGenerator.generate(session, car, null, EventType.INSERT);
+                    statement.setLong(1, id);
+                    statement.setString(2, car.getModel());
+                    statement.setString(3, car.getBrand());
+                    statement.setLong(4, car.getType().getId());
+                    statement.setInt(5, car.getAvailableCars());
+                    statement.setBigDecimal(6, car.getDailyPrice());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
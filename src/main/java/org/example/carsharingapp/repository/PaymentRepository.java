@@ -3,14 +3,24 @@ package org.example.carsharingapp.repository;
 import org.example.carsharingapp.model.Payment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
+    @Override
+    @EntityGraph(attributePaths = {"status", "type", "rental.car"})
+    Page<Payment> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"status", "type", "rental.car"})
     @Query("""
             SELECT p
             FROM Payment p
@@ -18,10 +28,41 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             """)
     Page<Payment> findAllByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"status", "type", "rental.car"})
     @Query("""
             SELECT p
             FROM Payment p
             WHERE p.rental.user.id = :userId
+              AND p.id > :afterId
+            ORDER BY p.id
             """)
-    List<Payment> findAllByUserId(@Param("userId") Long userId);
+    Slice<Payment> findAllByUserIdAfter(
+            @Param("userId") Long userId,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @EntityGraph(attributePaths = {"status", "type", "rental.car"})
+    Slice<Payment> findAllByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    Optional<Payment> findFirstByRentalIdAndStatusIdOrderByIdDesc(Long rentalId, Long statusId);
+
+    boolean existsByRentalUserIdAndStatusId(Long userId, Long statusId);
+
+    boolean existsByRentalIdAndStatusId(Long rentalId, Long statusId);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE payments
+            SET status_id = :toStatusId
+            WHERE session_id IN (:sessionIds)
+              AND status_id = :fromStatusId
+              AND is_deleted = false
+            """, nativeQuery = true)
+    int updateStatusBySessionIds(
+            @Param("sessionIds") Collection<String> sessionIds,
+            @Param("fromStatusId") Long fromStatusId,
+            @Param("toStatusId") Long toStatusId
+    );
 }
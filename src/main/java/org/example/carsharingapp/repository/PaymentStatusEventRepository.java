@@ -0,0 +1,79 @@
+package org.example.carsharingapp.repository;
+
+import org.example.carsharingapp.model.PaymentStatusEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface PaymentStatusEventRepository extends JpaRepository<PaymentStatusEvent, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO payment_status_events
+                (event_id, session_id, status, received_at, attempts)
+            VALUES (:eventId, :sessionId, :status, :receivedAt, 0)
+            """, nativeQuery = true)
+    int insertIfAbsent(
+            @Param("eventId") String eventId,
+            @Param("sessionId") String sessionId,
+            @Param("status") String status,
+            @Param("receivedAt") LocalDateTime receivedAt
+    );
+
+    @Query("""
+            SELECT e
+            FROM PaymentStatusEvent e
+            WHERE e.processedAt IS NULL
+              AND e.attempts < :maxAttempts
+            ORDER BY e.attempts, e.receivedAt
+            """)
+    List<PaymentStatusEvent> findUnprocessed(
+            @Param("maxAttempts") int maxAttempts,
+            Pageable pageable
+    );
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE payment_status_events e
+            JOIN payments p ON p.session_id = e.session_id AND p.is_deleted = false
+            JOIN payment_status s ON s.id = p.status_id
+            SET e.processed_at = :processedAt
+            WHERE e.event_id IN (:eventIds)
+              AND s.payment_status_name = e.status
+            """, nativeQuery = true)
+    int markApplied(
+            @Param("eventIds") Collection<String> eventIds,
+            @Param("processedAt") LocalDateTime processedAt
+    );
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE payment_status_events
+            SET attempts = attempts + 1
+            WHERE event_id IN (:eventIds)
+              AND processed_at IS NULL
+            """, nativeQuery = true)
+    int countAttempt(@Param("eventIds") Collection<String> eventIds);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM payment_status_events
+            WHERE processed_at < :before
+               OR (processed_at IS NULL AND attempts >= :maxAttempts AND received_at < :before)
+            """, nativeQuery = true)
+    int deleteSettledBefore(
+            @Param("before") LocalDateTime before,
+            @Param("maxAttempts") int maxAttempts
+    );
+}
@@ -1,13 +1,19 @@
 package org.example.carsharingapp.repository;
 
-import org.example.carsharingapp.model.Car;
+import jakarta.persistence.LockModeType;
+import org.example.carsharingapp.dto.OverdueRentalDto;
+import org.example.carsharingapp.dto.RentalWindowDto;
 import org.example.carsharingapp.model.Rental;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,31 +30,78 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
     @EntityGraph(attributePaths = {"user", "car"})
     Page<Rental> findAllByUserId(Long userId, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"user", "car"})
+    Slice<Rental> findAllByUserIdAndIdGreaterThanOrderByIdAsc(
+            Long userId, Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "car"})
+    Slice<Rental> findAllByUserIdAndActualReturnDateIsNullAndIdGreaterThanOrderByIdAsc(
+            Long userId, Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "car"})
+    Slice<Rental> findAllByUserIdAndActualReturnDateIsNotNullAndIdGreaterThanOrderByIdAsc(
+            Long userId, Long afterId, Pageable pageable);
+
     @Query("""
-            SELECT r
+            SELECT new org.example.carsharingapp.dto.RentalWindowDto(
+                r.id, r.car.id, r.rentalDate, r.returnDate)
             FROM Rental r
-            WHERE r.car = :car
+            WHERE r.actualReturnDate IS NULL
+            """)
+    List<RentalWindowDto> findActiveRentalWindows();
+
+    @Query("""
+            SELECT new org.example.carsharingapp.dto.RentalWindowDto(
+                r.id, r.car.id, r.rentalDate, r.returnDate)
+            FROM Rental r
+            WHERE r.car.id = :carId
               AND r.actualReturnDate IS NULL
-              AND r.rentalDate < :requestReturnDate
-              AND r.returnDate > :requestRentalDate
             """)
-    List<Rental> findActiveRentalsForCar(
-            @Param("car") Car car,
-            @Param("requestReturnDate") LocalDateTime requestReturnDate,
-            @Param("requestRentalDate") LocalDateTime requestRentalDate
-    );
+    List<RentalWindowDto> findActiveRentalWindowsByCarId(@Param("carId") Long carId);
 
     @EntityGraph(attributePaths = {"user", "car"})
     List<Rental> findAllByUserId(@Param("userId") Long userId);
 
     @Query("""
-            SELECT r
+            SELECT new org.example.carsharingapp.dto.OverdueRentalDto(
+                r.id, u.email, c.brand, c.model, r.returnDate)
             FROM Rental r
+            JOIN r.user u
+            JOIN r.car c
             WHERE r.actualReturnDate IS NULL
-            AND r.returnDate <= :requestReturnDate
+              AND r.returnDate <= :requestReturnDate
+              AND r.id > :lastRentalId
+            ORDER BY r.id
             """)
-    List<Rental> findOverdueRentals(
-            @Param("requestReturnDate") LocalDateTime requestReturnDate
+    List<OverdueRentalDto> findOverdueRentalsAfter(
+            @Param("requestReturnDate") LocalDateTime requestReturnDate,
+            @Param("lastRentalId") Long lastRentalId,
+            Pageable pageable
     );
 
+    @EntityGraph(attributePaths = {"user", "car"})
+    Optional<Rental> findWithUserAndCarById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Rental> findForUpdateById(Long id);
+
+    @Query("SELECT r.user.id FROM Rental r WHERE r.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE rentals
+            SET actual_return_date = :returnedAt
+            WHERE id = :id
+              AND actual_return_date IS NULL
+              AND is_deleted = false
+              AND (user_id = :userId OR :isManager)
+            """, nativeQuery = true)
+    int markReturned(
+            @Param("id") Long id,
+            @Param("userId") Long userId,
+            @Param("isManager") boolean isManager,
+            @Param("returnedAt") LocalDateTime returnedAt
+    );
 }
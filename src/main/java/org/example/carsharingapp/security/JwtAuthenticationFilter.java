@@ -5,9 +5,12 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
@@ -26,7 +29,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final UserPrincipalCache userPrincipalCache;
 
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(
@@ -37,9 +43,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = getToken(request);
 
-        if (token != null && jwtUtil.isValidToken(token)) {
-            String usernameFromToken = jwtUtil.getUsernameFromToken(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(usernameFromToken);
+        if (token != null) {
+            JwtClaims claims = jwtUtil.parseToken(token);
+            UserDetails userDetails = stateless
+                    ? toPrincipal(claims)
+                    : userPrincipalCache.get(
+                            claims.subject(), userDetailsService::loadUserByUsername
+                    );
             Authentication authentication = new UsernamePasswordAuthenticationToken(
                     userDetails, null, userDetails.getAuthorities()
             );
@@ -60,5 +70,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return null;
     }
 
+    private UserDetails toPrincipal(JwtClaims claims) {
+        return User.withUsername(claims.subject())
+                .password("")
+                .authorities(claims.roles().stream()
+                        .map(SimpleGrantedAuthority::new)
+                        .toList())
+                .build();
+    }
+
 
 }
@@ -0,0 +1,11 @@
+package org.example.carsharingapp.security;
+
+import java.time.Instant;
+import java.util.List;
+
+public record JwtClaims(
+        String subject,
+        List<String> roles,
+        Instant expiresAt
+) {
+}
@@ -1,53 +1,95 @@
 package org.example.carsharingapp.security;
 
-import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.carsharingapp.cache.ExpiringCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import io.jsonwebtoken.security.Keys;
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class JwtUtil {
 
-    private Key secret;
-    private long expiration;
+    private final SecretKey secret;
+    private final long expiration;
+    private final JwtParser parser;
+    private final ExpiringCache<String, JwtClaims> verifiedTokens;
 
     public JwtUtil(@Value("${jwt.secret}") String secretString,
-            @Value("${jwt.expiration}") long expiration) {
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.verified-cache.max-size:10000}") int verifiedCacheSize) {
         this.secret = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
         this.expiration = expiration;
+        this.parser = Jwts.parser()
+                .verifyWith(secret)
+                .build();
+        this.verifiedTokens = new ExpiringCache<>(
+                verifiedCacheSize, Duration.ofMillis(expiration)
+        );
     }
 
     public String generateToken(String subject, List<String> roles) {
         return Jwts.builder()
-                .setSubject(subject)
+                .subject(subject)
                 .claim("roles", roles)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(secret)
                 .compact();
     }
 
+    public JwtClaims parseToken(String token) {
+        String tokenHash = hash(token);
+        Optional<JwtClaims> verified = verifiedTokens.getIfPresent(tokenHash);
+        if (verified.isPresent()) {
+            return verified.get();
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        JwtClaims parsed = new JwtClaims(
+                claims.getSubject(),
+                getRoles(claims),
+                claims.getExpiration().toInstant()
+        );
+        verifiedTokens.put(tokenHash, parsed, parsed.expiresAt());
+        return parsed;
+    }
+
     public boolean isValidToken(String token) {
-        return !getClaims(token)
-                .getExpiration()
-                .before(new Date());
+        return parseToken(token).expiresAt().isAfter(Instant.now());
     }
 
     public String getUsernameFromToken(String token) {
-        return getClaims(token).getSubject();
+        return parseToken(token).subject();
+    }
+
+    private List<String> getRoles(Claims claims) {
+        if (claims.get("roles") instanceof List<?> roles) {
+            return roles.stream()
+                    .map(String::valueOf)
+                    .toList();
+        }
+        return List.of();
     }
 
-    private Claims getClaims(String token) {
-        return Jwts
-                .parser()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
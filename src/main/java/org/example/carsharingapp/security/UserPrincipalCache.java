@@ -0,0 +1,44 @@
+package org.example.carsharingapp.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.carsharingapp.cache.ExpiringCache;
+import org.example.carsharingapp.cache.ExpiringCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.function.Function;
+
+@Component
+public class UserPrincipalCache {
+
+    private final ExpiringCache<String, UserDetails> cache;
+
+    public UserPrincipalCache(
+            @Value("${security.principal-cache.max-size:10000}") int maximumSize,
+            @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.cache = new ExpiringCache<>(maximumSize, Duration.ofSeconds(ttlSeconds));
+        ExpiringCacheMetrics.monitor(meterRegistry, cache, "userPrincipals");
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        return cache.get(email, loader);
+    }
+
+    public void invalidate(String email) {
+        cache.invalidate(email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            cache.invalidate(email);
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.carsharingapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks that serialize bookings of the same car while bookings of
+ * different cars run in parallel. Bookings take the lock before opening their
+ * transaction and commit while holding it, so waiting threads hold no pooled
+ * connection and a competing booking only reads availability after the previous
+ * insert is committed. Inside a transaction the lock is held until the transaction
+ * completes. Locks are local to this JVM.
+ */
+@Component
+public class CarBookingLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public CarBookingLocks(@Value("${rental.booking.lock-stripes:256}") int stripeCount) {
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T executeLocked(Long carId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(carId);
+        lock.lock();
+
+        boolean releaseOnCompletion = false;
+        try {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public void afterCompletion(int status) {
+                                lock.unlock();
+                            }
+                        });
+                releaseOnCompletion = true;
+            }
+            return action.get();
+        } finally {
+            if (!releaseOnCompletion) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ReentrantLock stripeFor(Long carId) {
+        int hash = Long.hashCode(carId);
+        hash ^= hash >>> 16;
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.carsharingapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.carsharingapp.cache.ExpiringCache;
+import org.example.carsharingapp.cache.ExpiringCacheMetrics;
+import org.example.carsharingapp.model.Car;
+import org.example.carsharingapp.repository.CarRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of detached {@link Car} entities with their type loaded.
+ * The cached instance is never handed out; every lookup gets its own copy, so
+ * callers may modify it without affecting other threads. Entries are
+ * invalidated by car mutations and otherwise expire after the TTL; a car loaded
+ * before an invalidation of its id is returned but not cached.
+ */
+@Component
+public class CarCache {
+
+    private final CarRepository carRepository;
+    private final ExpiringCache<Long, Car> cache;
+
+    public CarCache(
+            CarRepository carRepository,
+            @Value("${car.cache.max-size:1000}") int maximumSize,
+            @Value("${car.cache.ttl-seconds:600}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.carRepository = carRepository;
+        this.cache = new ExpiringCache<>(maximumSize, Duration.ofSeconds(ttlSeconds));
+        ExpiringCacheMetrics.monitor(meterRegistry, cache, "cars");
+    }
+
+    public Optional<Car> findById(Long id) {
+        long generation = cache.generation(id);
+        Optional<Car> cached = cache.getIfPresent(id);
+        if (cached.isPresent()) {
+            return cached.map(this::copyOf);
+        }
+        Optional<Car> loaded = carRepository.findWithTypeById(id);
+        loaded.ifPresent(car -> cache.putIfGeneration(id, copyOf(car), generation));
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            cache.invalidate(id);
+                        }
+                    });
+        }
+    }
+
+    private Car copyOf(Car car) {
+        Car copy = new Car();
+        copy.setId(car.getId());
+        copy.setModel(car.getModel());
+        copy.setBrand(car.getBrand());
+        copy.setType(car.getType());
+        copy.setAvailableCars(car.getAvailableCars());
+        copy.setDailyPrice(car.getDailyPrice());
+        copy.setDeleted(car.isDeleted());
+        return copy;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.carsharingapp.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory version of the car catalog, bumped on every car mutation.
+ * Seeded with the start-up time so that versions are not reused after a restart.
+ */
+@Component
+public class CarCatalogVersion {
+
+    private final AtomicReference<Version> current;
+
+    public CarCatalogVersion() {
+        long now = System.currentTimeMillis();
+        this.current = new AtomicReference<>(new Version(now, now));
+    }
+
+    public Version current() {
+        return current.get();
+    }
+
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            increment();
+                        }
+                    });
+        } else {
+            increment();
+        }
+    }
+
+    private void increment() {
+        long now = System.currentTimeMillis();
+        current.updateAndGet(version -> new Version(version.value() + 1, now));
+    }
+
+    public record Version(long value, long lastModified) {
+
+        public String eTag() {
+            return "\"cars-" + value + "\"";
+        }
+    }
+}
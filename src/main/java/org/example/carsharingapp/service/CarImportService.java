@@ -0,0 +1,15 @@
+package org.example.carsharingapp.service;
+
+import org.example.carsharingapp.dto.CarImportResultDto;
+
+import java.io.InputStream;
+
+public interface CarImportService {
+
+    CarImportResultDto importCars(InputStream input, Format format);
+
+    enum Format {
+        CSV,
+        NDJSON
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.carsharingapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharingapp.dto.CarImportErrorDto;
+import org.example.carsharingapp.dto.CarImportResultDto;
+import org.example.carsharingapp.dto.CarRequestDto;
+import org.example.carsharingapp.dto.FleetCarDto;
+import org.example.carsharingapp.exception.InvalidImportFileException;
+import org.example.carsharingapp.model.Car;
+import org.example.carsharingapp.model.TypeName;
+import org.example.carsharingapp.repository.CarRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports a fleet from CSV or NDJSON in one pass over the input. Rows are merged
+ * in memory by (model, brand, type, daily price) against the current fleet, so
+ * the database sees one lookup query and batched upserts regardless of row count.
+ * The input is read and merged outside any transaction; only the upserts run in
+ * one. Invalid rows are reported by line number, up to max-errors of them, and do
+ * not stop the import. CSV fields may be quoted, with doubled quotes for a literal
+ * quote, but may not span lines.
+ */
+@Slf4j
+@Service
+public class CarImportServiceImpl implements CarImportService {
+
+    private static final List<String> CSV_COLUMNS =
+            List.of("model", "brand", "type", "availablecars", "dailyprice");
+
+    private final CarRepository carRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final CarCatalogVersion catalogVersion;
+    private final CarCache carCache;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public CarImportServiceImpl(
+            CarRepository carRepository,
+            ReferenceDataRegistry referenceData,
+            CarCatalogVersion catalogVersion,
+            CarCache carCache,
+            Validator validator,
+            ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate,
+            @Value("${car.import.batch-size:500}") int batchSize,
+            @Value("${car.import.max-errors:1000}") int maxErrors) {
+        this.carRepository = carRepository;
+        this.referenceData = referenceData;
+        this.catalogVersion = catalogVersion;
+        this.carCache = carCache;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public CarImportResultDto importCars(InputStream input, Format format) {
+        Map<CarKey, ImportedCar> cars = new LinkedHashMap<>();
+        for (FleetCarDto car : carRepository.findFleet()) {
+            cars.putIfAbsent(
+                    CarKey.of(car.model(), car.brand(), car.type(), car.dailyPrice()),
+                    new ImportedCar(car.id(), car.model(), car.brand(), car.type(),
+                            car.dailyPrice())
+            );
+        }
+
+        List<CarImportErrorDto> errors = new ArrayList<>();
+        int rowsRead = 0;
+        int rowsImported = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columns = format == Format.CSV ? readCsvHeader(reader) : null;
+            long lineNumber = columns == null ? 0 : 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                rowsRead++;
+                try {
+                    CarRequestDto row = format == Format.CSV
+                            ? parseCsvRow(line, columns)
+                            : objectMapper.readValue(line, CarRequestDto.class);
+                    merge(cars, row);
+                    rowsImported++;
+                } catch (JsonProcessingException e) {
+                    addError(errors, new CarImportErrorDto(lineNumber, "Malformed JSON"));
+                } catch (IllegalArgumentException e) {
+                    addError(errors, new CarImportErrorDto(lineNumber, e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("CarImportService: Could not read import", e);
+        }
+
+        List<ImportedCar> imported = cars.values().stream()
+                .filter(car -> car.added > 0)
+                .toList();
+        if (!imported.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                upsert(imported);
+                catalogVersion.bump();
+            });
+        }
+
+        int updated = (int) imported.stream().filter(car -> car.id != null).count();
+        int created = imported.size() - updated;
+        log.info("Fleet import: {} rows read, {} created, {} updated, {} rejected",
+                rowsRead, created, updated, rowsRead - rowsImported);
+        return new CarImportResultDto(rowsRead, rowsImported, created, updated, errors);
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new InvalidImportFileException("CarImportService: Missing CSV header");
+        }
+        List<String> names;
+        try {
+            names = splitCsv(header);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImportFileException("CarImportService: Malformed CSV header");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+            throw new InvalidImportFileException(
+                    "CarImportService: CSV header must contain columns "
+                            + "model, brand, type, available_cars, daily_price"
+            );
+        }
+        return columns;
+    }
+
+    private CarRequestDto parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        if (values.size() < columns.size()) {
+            throw new IllegalArgumentException(
+                    "Expected " + columns.size() + " columns, got " + values.size()
+            );
+        }
+        try {
+            return new CarRequestDto(
+                    values.get(columns.get("model")).trim(),
+                    values.get(columns.get("brand")).trim(),
+                    values.get(columns.get("type")).trim(),
+                    Integer.valueOf(values.get(columns.get("availablecars")).trim()),
+                    new BigDecimal(values.get(columns.get("dailyprice")).trim())
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in row");
+        }
+    }
+
+    private List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean closed = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                    closed = true;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                closed = false;
+            } else if (c == '"' && !closed && field.toString().isBlank()) {
+                field.setLength(0);
+                quoted = true;
+            } else if (c == '"' || closed && !Character.isWhitespace(c)) {
+                throw new IllegalArgumentException("Unexpected quote in field " + fields.size());
+            } else if (!closed) {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field " + fields.size());
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private void addError(List<CarImportErrorDto> errors, CarImportErrorDto error) {
+        if (errors.size() < maxErrors) {
+            errors.add(error);
+        }
+    }
+
+    private void merge(Map<CarKey, ImportedCar> cars, CarRequestDto row) {
+        Set<ConstraintViolation<CarRequestDto>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": "
+                            + violation.getMessage())
+                    .sorted()
+                    .reduce((first, second) -> first + ", " + second)
+                    .orElseThrow());
+        }
+
+        TypeName type = TypeName.fromString(row.type()).orElseThrow();
+        CarKey key = CarKey.of(row.model(), row.brand(), type, row.dailyPrice());
+        cars.computeIfAbsent(key, ignored -> new ImportedCar(
+                null, row.model().trim(), row.brand().trim(), type, key.dailyPrice()
+        )).added += row.availableCars();
+    }
+
+    private void upsert(List<ImportedCar> cars) {
+        for (int from = 0; from < cars.size(); from += batchSize) {
+            List<Car> chunk = new ArrayList<>();
+            for (ImportedCar imported : cars.subList(from,
+                    Math.min(from + batchSize, cars.size()))) {
+                Car car = new Car();
+                car.setModel(imported.model);
+                car.setBrand(imported.brand);
+                car.setType(referenceData.carType(imported.type));
+                car.setAvailableCars(imported.added);
+                car.setDailyPrice(imported.dailyPrice);
+                chunk.add(car);
+            }
+            carRepository.upsertAll(chunk);
+        }
+        cars.stream()
+                .filter(car -> car.id != null)
+                .forEach(car -> carCache.invalidate(car.id));
+    }
+
+    private record CarKey(String model, String brand, TypeName type, BigDecimal dailyPrice) {
+
+        private static CarKey of(
+                String model, String brand, TypeName type, BigDecimal dailyPrice) {
+            return new CarKey(
+                    model.trim().toLowerCase(Locale.ROOT),
+                    brand.trim().toLowerCase(Locale.ROOT),
+                    type,
+                    dailyPrice == null ? null : dailyPrice.setScale(2, RoundingMode.HALF_UP)
+            );
+        }
+    }
+
+    private static final class ImportedCar {
+
+        private final Long id;
+        private final String model;
+        private final String brand;
+        private final TypeName type;
+        private final BigDecimal dailyPrice;
+        private int added;
+
+        private ImportedCar(
+                Long id, String model, String brand, TypeName type, BigDecimal dailyPrice) {
+            this.id = id;
+            this.model = model;
+            this.brand = brand;
+            this.type = type;
+            this.dailyPrice = dailyPrice;
+        }
+    }
+}
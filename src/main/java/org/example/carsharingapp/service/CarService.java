@@ -1,11 +1,15 @@
 package org.example.carsharingapp.service;
 
+import org.example.carsharingapp.dto.CarAvailabilityDto;
 import org.example.carsharingapp.dto.CarRequestDto;
 import org.example.carsharingapp.dto.CarResponseDto;
 import org.example.carsharingapp.dto.CarResponseLiteDto;
+import org.example.carsharingapp.model.TypeName;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+
 public interface CarService {
     CarResponseDto addNewCar(CarRequestDto requestDto);
 
@@ -13,6 +17,9 @@ public interface CarService {
 
     CarResponseDto getSingleCarInfo(Long id);
 
+    Page<CarAvailabilityDto> getAvailableCars(
+            LocalDateTime rentalDate, LocalDateTime returnDate, TypeName type, Pageable pageable);
+
     CarResponseDto updateCarById(Long id, CarRequestDto requestDto);
 
     void deleteCarById(Long id);
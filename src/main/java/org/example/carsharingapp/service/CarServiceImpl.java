@@ -1,59 +1,72 @@
 package org.example.carsharingapp.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.carsharingapp.dto.CarAvailabilityDto;
 import org.example.carsharingapp.dto.CarRequestDto;
 import org.example.carsharingapp.dto.CarResponseDto;
 import org.example.carsharingapp.dto.CarResponseLiteDto;
+import org.example.carsharingapp.dto.FleetCarDto;
+import org.example.carsharingapp.exception.DuplicateCarException;
 import org.example.carsharingapp.exception.EntityNotFoundException;
+import org.example.carsharingapp.exception.InvalidRentalPeriodException;
 import org.example.carsharingapp.mapper.CarMapper;
 import org.example.carsharingapp.model.Car;
 import org.example.carsharingapp.model.CarType;
 import org.example.carsharingapp.model.TypeName;
 import org.example.carsharingapp.repository.CarRepository;
-import org.example.carsharingapp.repository.CarTypeRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CarServiceImpl implements CarService {
 
+    private static final int UPSERT_ATTEMPTS = 3;
+
     private final CarRepository carRepository;
     private final CarMapper carMapper;
-    private final CarTypeRepository carTypeRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final CarCatalogVersion catalogVersion;
+    private final CarCache carCache;
+    private final FleetCatalog fleetCatalog;
+    private final RentalAvailabilityIndex availabilityIndex;
 
     @Override
     public CarResponseDto addNewCar(CarRequestDto requestDto) {
         Car carFromRequest = carMapper.toModel(requestDto);
-        Optional<Car> matchingCar = carRepository.findByModelAndBrandAndTypeAndDailyPrice(
+        upsert(carFromRequest);
+
+        Car car = carRepository.findByModelAndBrandAndTypeAndDailyPrice(
                 carFromRequest.getModel(),
                 carFromRequest.getBrand(),
                 carFromRequest.getType(),
-                carFromRequest.getDailyPrice());
-
-        if (matchingCar.isPresent()) {
-            Car existCar = matchingCar.get();
-            existCar.setAvailableCars(existCar.getAvailableCars() + requestDto.availableCars());
-            carRepository.save(existCar);
-            return carMapper.toDto(existCar);
-        }
-
-        carRepository.save(carFromRequest);
-        return carMapper.toDto(carFromRequest);
+                carFromRequest.getDailyPrice()
+        ).orElseThrow(() -> new EntityNotFoundException(
+                "CarService: Car " + carFromRequest.getModel() + " not found after upsert"
+        ));
+        carCache.invalidate(car.getId());
+        catalogVersion.bump();
+        return carMapper.toDto(car);
     }
 
     @Override
     public Page<CarResponseLiteDto> getAllCars(Pageable pageable) {
-        return carRepository.findAll(pageable)
-                .map(carMapper::toLiteDto);
+        return carRepository.findAllLite(pageable);
     }
 
     @Override
     public CarResponseDto getSingleCarInfo(Long id) {
-        Optional<Car> carById = carRepository.findById(id);
+        Optional<Car> carById = carCache.findById(id);
         Car car = carById.orElseThrow(
                 () -> new EntityNotFoundException(
                         "CarService: Car with id: " + id + " not found"
@@ -61,6 +74,37 @@ public class CarServiceImpl implements CarService {
         return carMapper.toDto(car);
     }
 
+    @Override
+    public Page<CarAvailabilityDto> getAvailableCars(
+            LocalDateTime rentalDate, LocalDateTime returnDate, TypeName type, Pageable pageable
+    ) {
+        if (!returnDate.isAfter(rentalDate)) {
+            throw new InvalidRentalPeriodException(
+                    "CarService: Return date must be after rental date"
+            );
+        }
+
+        Map<Long, Integer> rentedByCar =
+                availabilityIndex.countActiveRentalsByCar(rentalDate, returnDate);
+        List<CarAvailabilityDto> available = new ArrayList<>();
+        for (FleetCarDto car : fleetCatalog.cars()) {
+            if (type != null && car.type() != type) {
+                continue;
+            }
+            int remaining = car.availableCars() - rentedByCar.getOrDefault(car.id(), 0);
+            if (remaining > 0) {
+                available.add(new CarAvailabilityDto(
+                        car.id(), car.model(), car.brand(), car.type().name(),
+                        remaining, car.dailyPrice()
+                ));
+            }
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), available.size());
+        int to = Math.min(from + pageable.getPageSize(), available.size());
+        return new PageImpl<>(available.subList(from, to), pageable, available.size());
+    }
+
     @Override
     public CarResponseDto updateCarById(Long id, CarRequestDto requestDto) {
         Optional<Car> carById = carRepository.findById(id);
@@ -69,26 +113,44 @@ public class CarServiceImpl implements CarService {
                         "CarService: Car with id: " + id + " not found"
                 ));
 
-        Optional<CarType> carTypeByName = carTypeRepository.findByTypeName(
-                TypeName.valueOf(requestDto.type())
-        );
-
-        CarType carType = carTypeByName.orElseThrow(
-                () -> new EntityNotFoundException(
-                        "CarService: Car type: " + requestDto.type() + " not found"
-                ));
+        CarType carType = referenceData.carType(TypeName.valueOf(requestDto.type()));
 
         car.setModel(requestDto.model());
         car.setBrand(requestDto.brand());
         car.setType(carType);
         car.setAvailableCars(requestDto.availableCars());
         car.setDailyPrice(requestDto.dailyPrice());
-        Car saved = carRepository.save(car);
+        Car saved;
+        try {
+            saved = carRepository.save(car);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateCarException(
+                    "CarService: Car " + requestDto.brand() + " " + requestDto.model()
+                            + " with this type and daily price already exists"
+            );
+        }
+        carCache.invalidate(id);
+        catalogVersion.bump();
         return carMapper.toDto(saved);
     }
 
     @Override
     public void deleteCarById(Long id) {
         carRepository.deleteById(id);
+        carCache.invalidate(id);
+        catalogVersion.bump();
+    }
+
+    private void upsert(Car car) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                carRepository.upsertAll(List.of(car));
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == UPSERT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,35 @@
+package org.example.carsharingapp.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.carsharingapp.dto.FleetCarDto;
+import org.example.carsharingapp.repository.CarRepository;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+/**
+ * Snapshot of every car with its unit count, reloaded only when the
+ * {@link CarCatalogVersion} changes, so availability searches do not query
+ * the cars table.
+ */
+@Component
+@RequiredArgsConstructor
+public class FleetCatalog {
+
+    private final CarRepository carRepository;
+    private final CarCatalogVersion catalogVersion;
+
+    private volatile Snapshot snapshot = new Snapshot(Long.MIN_VALUE, List.of());
+
+    public List<FleetCarDto> cars() {
+        long version = catalogVersion.current().value();
+        Snapshot current = snapshot;
+        if (current.version() != version) {
+            current = new Snapshot(version, List.copyOf(carRepository.findFleet()));
+            snapshot = current;
+        }
+        return current.cars();
+    }
+
+    private record Snapshot(long version, List<FleetCarDto> cars) {
+    }
+}
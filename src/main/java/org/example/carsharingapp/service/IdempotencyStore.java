@@ -0,0 +1,112 @@
+package org.example.carsharingapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.carsharingapp.cache.ExpiringCache;
+import org.example.carsharingapp.cache.ExpiringCacheMetrics;
+import org.example.carsharingapp.exception.IdempotencyKeyReusedException;
+import org.example.carsharingapp.exception.IdempotentRequestInProgressException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers responses of non-idempotent requests by their {@code Idempotency-Key}.
+ * A repeated key with the same request returns the stored response without running
+ * the action again; the same key with a different request is rejected. A duplicate
+ * arriving while the first execution is in flight waits for its result up to
+ * wait-timeout-ms. Failed executions are forgotten so the client can retry them.
+ */
+@Component
+public class IdempotencyStore {
+
+    private final ExpiringCache<String, Execution> responses;
+    private final ObjectMapper objectMapper;
+    private final long waitTimeoutMillis;
+
+    public IdempotencyStore(
+            @Value("${idempotency.max-size:10000}") int maximumSize,
+            @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.responses = new ExpiringCache<>(maximumSize, Duration.ofSeconds(ttlSeconds));
+        this.objectMapper = objectMapper;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        ExpiringCacheMetrics.monitor(meterRegistry, responses, "idempotency");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String idempotencyKey, Object request, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+
+        String key = scope + ":" + idempotencyKey;
+        Execution execution = new Execution(hash(request), new CompletableFuture<>());
+        Optional<Execution> original = responses.putIfAbsent(key, execution);
+        if (original.isPresent()) {
+            if (!original.get().requestHash().equals(execution.requestHash())) {
+                throw new IdempotencyKeyReusedException(
+                        "IdempotencyStore: Idempotency-Key was already used for another request"
+                );
+            }
+            return (T) await(original.get().response());
+        }
+
+        try {
+            T response = action.get();
+            execution.response().complete(response);
+            return response;
+        } catch (Throwable e) {
+            responses.invalidate(key);
+            execution.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object await(CompletableFuture<Object> response) {
+        try {
+            return response.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotentRequestInProgressException(
+                    "IdempotencyStore: Request with this Idempotency-Key is still in progress"
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException(
+                    "IdempotencyStore: Interrupted while waiting for the original request"
+            );
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("IdempotencyStore: Can't hash request", e);
+        }
+    }
+
+    private record Execution(String requestHash, CompletableFuture<Object> response) {
+    }
+}
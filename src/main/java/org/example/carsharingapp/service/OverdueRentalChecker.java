@@ -1,40 +1,89 @@
 package org.example.carsharingapp.service;
 
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
-import org.example.carsharingapp.model.Rental;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharingapp.dto.OverdueRentalDto;
 import org.example.carsharingapp.repository.RentalRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class OverdueRentalChecker {
 
+    private static final int MAX_DIGEST_LENGTH = 4000;
+
     private final RentalRepository rentalRepository;
     private final NotificationService telegramService;
+    private final int chunkSize;
+    private final Timer checkTimer;
+    private final Counter overdueCounter;
+
+    public OverdueRentalChecker(
+            RentalRepository rentalRepository,
+            NotificationService telegramService,
+            MeterRegistry meterRegistry,
+            @Value("${rental.overdue-check.chunk-size:500}") int chunkSize) {
+        this.rentalRepository = rentalRepository;
+        this.telegramService = telegramService;
+        this.chunkSize = chunkSize;
+        this.checkTimer = Timer.builder("rental.overdue.check")
+                .description("Duration of the overdue rentals check")
+                .register(meterRegistry);
+        this.overdueCounter = Counter.builder("rental.overdue.rentals")
+                .description("Overdue rentals found by the overdue rentals check")
+                .register(meterRegistry);
+    }
 
     @Scheduled(cron = "0 0 9 * * ?")
-    @Transactional
     public void checkOverdueRental() {
+        checkTimer.record(this::sendOverdueDigest);
+    }
+
+    private void sendOverdueDigest() {
         LocalDateTime currentDay = LocalDateTime.now();
+        Pageable chunk = Pageable.ofSize(chunkSize);
+        StringBuilder digest = new StringBuilder();
+        long total = 0;
+        long omitted = 0;
+        Long lastRentalId = 0L;
 
-        List<Rental> overdueRentals = rentalRepository.findOverdueRentals(currentDay);
+        List<OverdueRentalDto> overdueRentals;
+        do {
+            overdueRentals = rentalRepository.findOverdueRentalsAfter(
+                    currentDay, lastRentalId, chunk
+            );
+            for (OverdueRentalDto rental : overdueRentals) {
+                String line = "User: " + rental.email()
+                        + ", Car: " + rental.brand() + " " + rental.model()
+                        + ", Return date: " + rental.returnDate() + "\n";
+                if (digest.length() + line.length() <= MAX_DIGEST_LENGTH) {
+                    digest.append(line);
+                } else {
+                    omitted++;
+                }
+                lastRentalId = rental.rentalId();
+            }
+            total += overdueRentals.size();
+        } while (overdueRentals.size() == chunkSize);
+
+        overdueCounter.increment(total);
+        log.info("Overdue rentals check found {} rentals", total);
 
-        if (overdueRentals.isEmpty()) {
+        if (total == 0) {
             telegramService.sendNotification("No rentals overdue today!");
-        } else {
-            for (Rental rental : overdueRentals) {
-                String msg = "Rentals overdue! \n"
-                        + "User: " + rental.getUser().getEmail() + "\n"
-                        + "Car: " + rental.getCar() + "\n"
-                        + "Return date: " + rental.getReturnDate();
-
-                telegramService.sendNotification(msg);
-            }
+            return;
+        }
+        if (omitted > 0) {
+            digest.append("...and ").append(omitted).append(" more");
         }
+        telegramService.sendNotification("Rentals overdue: " + total + "\n" + digest);
     }
 }
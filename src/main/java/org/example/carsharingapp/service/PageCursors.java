@@ -0,0 +1,62 @@
+package org.example.carsharingapp.service;
+
+import org.example.carsharingapp.dto.CursorPageDto;
+import org.example.carsharingapp.exception.InvalidCursorException;
+import org.springframework.data.domain.Slice;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque "after id" cursors for keyset pagination. A page is fetched with
+ * {@code id > afterId ORDER BY id} as a {@link Slice}, so no count query runs
+ * and the cost of a page does not depend on how deep the client has scrolled.
+ */
+final class PageCursors {
+
+    private static final String PREFIX = "after:";
+
+    private PageCursors() {
+    }
+
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(
+                    Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8
+            );
+            if (!decoded.startsWith(PREFIX)) {
+                throw new InvalidCursorException("PageCursors: Invalid cursor");
+            }
+            long afterId = Long.parseLong(decoded.substring(PREFIX.length()));
+            if (afterId < 0) {
+                throw new InvalidCursorException("PageCursors: Invalid cursor");
+            }
+            return afterId;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("PageCursors: Invalid cursor");
+        }
+    }
+
+    static String encode(long afterId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + afterId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static <E, T> CursorPageDto<T> toPage(
+            Slice<E> slice, Function<E, Long> idOf, Function<E, T> mapper) {
+        List<E> rows = slice.getContent();
+        String nextCursor = slice.hasNext() && !rows.isEmpty()
+                ? encode(idOf.apply(rows.get(rows.size() - 1)))
+                : null;
+        return new CursorPageDto<>(
+                rows.stream().map(mapper).toList(),
+                slice.getSize(),
+                slice.hasNext(),
+                nextCursor
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.carsharingapp.service;
 
+import org.example.carsharingapp.dto.CursorPageDto;
 import org.example.carsharingapp.dto.PaymentResponseDto;
 import org.example.carsharingapp.dto.PaymentUrlResponseDto;
 import org.springframework.data.domain.Page;
@@ -11,6 +12,8 @@ public interface PaymentService {
 
     Page<PaymentResponseDto> getPayments(Long userId, Pageable pageable);
 
+    CursorPageDto<PaymentResponseDto> getPayments(Long userId, String cursor, int size);
+
     String success(Long id);
 
     String cancelled();
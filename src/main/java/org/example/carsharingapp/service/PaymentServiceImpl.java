@@ -4,6 +4,7 @@ import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.carsharingapp.dto.CursorPageDto;
 import org.example.carsharingapp.dto.PaymentResponseDto;
 import org.example.carsharingapp.dto.PaymentUrlResponseDto;
 import org.example.carsharingapp.exception.AccessDeniedException;
@@ -11,27 +12,29 @@ import org.example.carsharingapp.exception.EntityNotFoundException;
 import org.example.carsharingapp.exception.PaymentException;
 import org.example.carsharingapp.exception.StripeSessionException;
 import org.example.carsharingapp.mapper.PaymentMapper;
+import org.example.carsharingapp.model.Car;
 import org.example.carsharingapp.model.Payment;
 import org.example.carsharingapp.model.PaymentStatus;
 import org.example.carsharingapp.model.PaymentStatusName;
 import org.example.carsharingapp.model.PaymentType;
 import org.example.carsharingapp.model.PaymentTypeName;
 import org.example.carsharingapp.model.Rental;
-import org.example.carsharingapp.model.Role;
 import org.example.carsharingapp.model.RoleName;
 import org.example.carsharingapp.model.User;
 import org.example.carsharingapp.repository.PaymentRepository;
-import org.example.carsharingapp.repository.PaymentStatusRepository;
-import org.example.carsharingapp.repository.PaymentTypeRepository;
 import org.example.carsharingapp.repository.RentalRepository;
-import org.example.carsharingapp.repository.RoleRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -42,56 +45,31 @@ public class PaymentServiceImpl implements PaymentService {
 
     private final RentalRepository rentalRepository;
     private final UserService userService;
-    private final RoleRepository roleRepository;
-    private final PaymentTypeRepository paymentTypeRepository;
-    private final PaymentStatusRepository paymentStatusRepository;
+    private final ReferenceDataRegistry referenceData;
     private final StripePaymentService stripePaymentService;
     private final PaymentRepository paymentRepository;
     private final PaymentMapper paymentMapper;
+    private final CarCache carCache;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
-    @Transactional
     public PaymentUrlResponseDto createPaymentSessionByRentalId(Long id) {
-        Rental rentalById = getRentalById(id);
-        User currentUser = userService.getCurrentUser();
-        Role managerRole = getUserRole(RoleName.ROLE_MANAGER);
-
-        log.info("User {} is creating payment session for rentalId={}", currentUser.getEmail(), id);
-
-
-        if (rentalById.getActualReturnDate() == null) {
-            log.warn("Payment attempt for rentalId={} failed: car not returned yet", id);
-            throw new PaymentException(
-                    "PaymentService: Car has not been returned"
-            );
-        }
-        if (
-                rentalById.getUser().getId() != currentUser.getId()
-                        && !currentUser.getRoles().contains(managerRole)
-        ) {
-            log.warn("Access denied: user {} tried to pay for rentalId={}", currentUser.getEmail(), id);
-            throw new AccessDeniedException(
-                    "PaymentService: Rental with id " + id + " not exist for current user"
-            );
+        PaymentDraft draft = transactionTemplate.execute(status -> preparePayment(id));
+        if (draft.pendingSessionUrl() != null) {
+            log.info("Reusing pending payment session for rentalId={}", id);
+            return new PaymentUrlResponseDto(draft.pendingSessionUrl());
         }
 
-        BigDecimal dailyPrice = rentalById.getCar().getDailyPrice();
-        LocalDateTime rentalDate = rentalById.getRentalDate();
-        LocalDateTime returnDate = rentalById.getReturnDate();
-        LocalDateTime actualReturnDate = rentalById.getActualReturnDate();
-        boolean isOverdue = actualReturnDate.isAfter(returnDate);
-
-        BigDecimal amount = getAmount(
-                isOverdue, dailyPrice, rentalDate, returnDate, actualReturnDate
-        );
-        log.info("Calculated payment amount {} for rentalId={}", amount, id);
-
-        long amountInCents = amount.longValueExact();
+        long amountInCents = draft.amount().longValueExact();
+        String idempotencyKey = "payment-rental-" + id + "-" + amountInCents;
+        if (draft.expiredPaymentId() != null) {
+            idempotencyKey += "-after-" + draft.expiredPaymentId();
+        }
 
         Session session;
 
         try {
-            session = getStripeSession(rentalById.getId(), amountInCents);
+            session = getStripeSession(id, amountInCents, idempotencyKey);
             log.info("Stripe session created for rentalId={}, sessionId={}", id, session.getId());
         } catch (StripeException e) {
             log.error("Stripe session creation failed for rentalId={}, error={}", id, e.getMessage());
@@ -100,21 +78,8 @@ public class PaymentServiceImpl implements PaymentService {
             );
         }
 
-
-        Payment newPayment = new Payment();
-        newPayment.setStatus(getPaymentStatus(PaymentStatusName.PENDING));
-        newPayment.setType(
-                isOverdue
-                        ? getPaymentType(PaymentTypeName.FINE)
-                        : getPaymentType(PaymentTypeName.PAYMENT)
-        );
-        newPayment.setRental(rentalById);
-        newPayment.setSessionUrl(session.getUrl());
-        newPayment.setSessionId(session.getId());
-        newPayment.setAmountToPay(amount);
-
-        Payment saved = paymentRepository.save(newPayment);
-        log.info("Payment saved with id={} and status={}", saved.getId(), saved.getStatus().getPaymentStatusName());
+        Payment saved = transactionTemplate.execute(status -> savePayment(draft, session));
+        log.info("Payment with id={} is pending for rentalId={}", saved.getId(), id);
 
         return new PaymentUrlResponseDto(saved.getSessionUrl());
     }
@@ -123,9 +88,7 @@ public class PaymentServiceImpl implements PaymentService {
     @Transactional
     public Page<PaymentResponseDto> getPayments(Long userId, Pageable pageable) {
         User currentUser = userService.getCurrentUser();
-        boolean isManager = currentUser.getRoles().contains(getUserRole(RoleName.ROLE_MANAGER));
-
-        if (!isManager) {
+        if (!isManager(currentUser)) {
             if (userId == null || currentUser.getId() != userId) {
                 userId = currentUser.getId();
             }
@@ -143,6 +106,25 @@ public class PaymentServiceImpl implements PaymentService {
         return paymentsByUserId.map(paymentMapper::toDto);
     }
 
+    @Override
+    public CursorPageDto<PaymentResponseDto> getPayments(Long userId, String cursor, int size) {
+        User currentUser = userService.getCurrentUser();
+        long afterId = PageCursors.decode(cursor);
+        Pageable limit = Pageable.ofSize(size);
+
+        Slice<Payment> paymentSlice;
+        if (!isManager(currentUser)) {
+            paymentSlice = paymentRepository.findAllByUserIdAfter(
+                    currentUser.getId(), afterId, limit);
+        } else if (userId == null) {
+            paymentSlice = paymentRepository.findAllByIdGreaterThanOrderByIdAsc(afterId, limit);
+        } else {
+            paymentSlice = paymentRepository.findAllByUserIdAfter(userId, afterId, limit);
+        }
+
+        return PageCursors.toPage(paymentSlice, Payment::getId, paymentMapper::toDto);
+    }
+
     @Override
     @Transactional
     public String success(Long id) {
@@ -165,6 +147,106 @@ public class PaymentServiceImpl implements PaymentService {
         return "Payment cancelled";
     }
 
+    private PaymentDraft preparePayment(Long id) {
+        Rental rentalById = getRentalById(id);
+        User currentUser = userService.getCurrentUser();
+
+        log.info("User {} is creating payment session for rentalId={}", currentUser.getEmail(), id);
+
+
+        if (rentalById.getActualReturnDate() == null) {
+            log.warn("Payment attempt for rentalId={} failed: car not returned yet", id);
+            throw new PaymentException(
+                    "PaymentService: Car has not been returned"
+            );
+        }
+        if (
+                rentalById.getUser().getId() != currentUser.getId()
+                        && !isManager(currentUser)
+        ) {
+            log.warn("Access denied: user {} tried to pay for rentalId={}", currentUser.getEmail(), id);
+            throw new AccessDeniedException(
+                    "PaymentService: Rental with id " + id + " not exist for current user"
+            );
+        }
+
+        if (paymentRepository.existsByRentalIdAndStatusId(
+                id, getPaymentStatus(PaymentStatusName.PAID).getId())) {
+            log.warn("Payment attempt for rentalId={} failed: already paid", id);
+            throw new PaymentException(
+                    "PaymentService: Rental with id " + id + " has already been paid"
+            );
+        }
+
+        Optional<Payment> pending = findPendingPayment(id);
+        if (pending.isPresent() && !isSessionExpired(pending.get())) {
+            return new PaymentDraft(id, null, null, pending.get().getSessionUrl(), null);
+        }
+        Long expiredPaymentId = pending.map(Payment::getId).orElse(null);
+
+        BigDecimal dailyPrice = getCar(rentalById.getCar().getId()).getDailyPrice();
+        LocalDateTime rentalDate = rentalById.getRentalDate();
+        LocalDateTime returnDate = rentalById.getReturnDate();
+        LocalDateTime actualReturnDate = rentalById.getActualReturnDate();
+        boolean isOverdue = actualReturnDate.isAfter(returnDate);
+
+        BigDecimal amount = getAmount(
+                isOverdue, dailyPrice, rentalDate, returnDate, actualReturnDate
+        );
+        log.info("Calculated payment amount {} for rentalId={}", amount, id);
+
+        PaymentTypeName type = isOverdue ? PaymentTypeName.FINE : PaymentTypeName.PAYMENT;
+        return new PaymentDraft(id, amount, type, null, expiredPaymentId);
+    }
+
+    private Payment savePayment(PaymentDraft draft, Session session) {
+        // Concurrent requests for the same rental serialize on its row, so only the
+        // first one inserts a PENDING payment and the others reuse it.
+        Rental rental = rentalRepository.findForUpdateById(draft.rentalId()).orElseThrow(
+                () -> new EntityNotFoundException(
+                        "PaymentService: Rental with id " + draft.rentalId() + " not found"
+                ));
+        Optional<Payment> pending = findPendingPayment(draft.rentalId());
+        if (pending.isPresent() && !isSessionExpired(pending.get())) {
+            log.info("Pending payment for rentalId={} saved concurrently, reusing it",
+                    draft.rentalId());
+            return pending.get();
+        }
+        pending.ifPresent(expired -> {
+            expired.setStatus(getPaymentStatus(PaymentStatusName.EXPIRED));
+            log.info("Payment with id={} expired with its Stripe session", expired.getId());
+        });
+
+        Payment newPayment = new Payment();
+        newPayment.setStatus(getPaymentStatus(PaymentStatusName.PENDING));
+        newPayment.setType(getPaymentType(draft.type()));
+        newPayment.setRental(rental);
+        newPayment.setSessionUrl(session.getUrl());
+        newPayment.setSessionId(session.getId());
+        if (session.getExpiresAt() != null) {
+            newPayment.setSessionExpiresAt(LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(session.getExpiresAt()), ZoneId.systemDefault()));
+        }
+        newPayment.setAmountToPay(draft.amount());
+
+        return paymentRepository.save(newPayment);
+    }
+
+    private Optional<Payment> findPendingPayment(Long rentalId) {
+        return paymentRepository.findFirstByRentalIdAndStatusIdOrderByIdDesc(
+                rentalId, getPaymentStatus(PaymentStatusName.PENDING).getId()
+        );
+    }
+
+    /**
+     * Stripe checkout sessions stop accepting payment at expires_at, so a pending
+     * payment past that point (or created before the expiry was stored) is replaced.
+     */
+    private boolean isSessionExpired(Payment payment) {
+        LocalDateTime expiresAt = payment.getSessionExpiresAt();
+        return expiresAt == null || !expiresAt.isAfter(LocalDateTime.now());
+    }
+
     private Payment getPayment(Long id) {
         return paymentRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException(
@@ -173,17 +255,12 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     private PaymentStatus getPaymentStatus(PaymentStatusName paymentStatusName) {
-        return paymentStatusRepository.findByPaymentStatusName(paymentStatusName).orElseThrow(
-                () -> new EntityNotFoundException(
-                        "PaymentService: Payment status " + paymentStatusName + " not found"
-                ));
+        return referenceData.paymentStatus(paymentStatusName);
     }
 
-    private Role getUserRole(RoleName roleName) {
-        return roleRepository.findByName(roleName).orElseThrow(
-                () -> new EntityNotFoundException(
-                        "PaymentService: Role with name " + roleName + " not found"
-                ));
+    private boolean isManager(User user) {
+        return user.getRoles().stream()
+                .anyMatch(role -> role.getName() == RoleName.ROLE_MANAGER);
     }
 
     private Rental getRentalById(Long id) {
@@ -193,13 +270,17 @@ public class PaymentServiceImpl implements PaymentService {
                 ));
     }
 
-    private PaymentType getPaymentType(PaymentTypeName paymentTypeName) {
-        return paymentTypeRepository.findByPaymentTypeName(paymentTypeName).orElseThrow(
+    private Car getCar(Long id) {
+        return carCache.findById(id).orElseThrow(
                 () -> new EntityNotFoundException(
-                        "PaymentService: Payment type " + paymentTypeName + " not found"
+                        "PaymentService: Car with id " + id + " not found"
                 ));
     }
 
+    private PaymentType getPaymentType(PaymentTypeName paymentTypeName) {
+        return referenceData.paymentType(paymentTypeName);
+    }
+
     private BigDecimal getAmount(
             boolean isOverdue,
             BigDecimal dailyPrice,
@@ -227,7 +308,17 @@ public class PaymentServiceImpl implements PaymentService {
         return dailyPrice.multiply(BigDecimal.valueOf(rentalDays));
     }
 
-    private Session getStripeSession(Long rentalId, Long amountInCents) throws StripeException {
-        return stripePaymentService.createCheckoutSession(rentalId, amountInCents);
+    private Session getStripeSession(Long rentalId, Long amountInCents, String idempotencyKey)
+            throws StripeException {
+        return stripePaymentService.createCheckoutSession(rentalId, amountInCents, idempotencyKey);
+    }
+
+    private record PaymentDraft(
+            Long rentalId,
+            BigDecimal amount,
+            PaymentTypeName type,
+            String pendingSessionUrl,
+            Long expiredPaymentId
+    ) {
     }
 }
@@ -0,0 +1,152 @@
+package org.example.carsharingapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharingapp.dto.PaymentStatusEventDto;
+import org.example.carsharingapp.model.PaymentStatusEvent;
+import org.example.carsharingapp.model.PaymentStatusName;
+import org.example.carsharingapp.repository.PaymentRepository;
+import org.example.carsharingapp.repository.PaymentStatusEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inbox for payment status events received from Stripe webhooks. An event is
+ * written to the payment_status_events table before the webhook is acknowledged,
+ * so it survives a restart, and the event id primary key drops Stripe's
+ * at-least-once redeliveries. Pending events are applied in batches, one UPDATE
+ * per target status. Only PENDING payments are moved, so replayed or late events
+ * never downgrade a payment. An event is marked processed only once its payment
+ * holds the target status; events whose payment is not there yet are retried up
+ * to max-attempts drains.
+ */
+@Slf4j
+@Component
+public class PaymentStatusEventQueue {
+
+    private final PaymentStatusEventRepository eventRepository;
+    private final PaymentRepository paymentRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retentionHours;
+    private final Counter updatedPayments;
+
+    public PaymentStatusEventQueue(
+            PaymentStatusEventRepository eventRepository,
+            PaymentRepository paymentRepository,
+            ReferenceDataRegistry referenceData,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stripe.webhook.batch-size:500}") int batchSize,
+            @Value("${stripe.webhook.max-attempts:100}") int maxAttempts,
+            @Value("${stripe.webhook.retention-hours:72}") long retentionHours) {
+        this.eventRepository = eventRepository;
+        this.paymentRepository = paymentRepository;
+        this.referenceData = referenceData;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retentionHours = retentionHours;
+        this.updatedPayments = Counter.builder("payment.webhook.updated")
+                .description("Payments whose status was changed by Stripe webhook events")
+                .register(meterRegistry);
+    }
+
+    public void offer(PaymentStatusEventDto event) {
+        int inserted = eventRepository.insertIfAbsent(
+                event.eventId(), event.sessionId(), event.status().name(), LocalDateTime.now()
+        );
+        if (inserted == 0) {
+            log.debug("Stripe event {} already received", event.eventId());
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${stripe.webhook.drain-delay-ms:1000}",
+            initialDelayString = "${stripe.webhook.drain-delay-ms:1000}"
+    )
+    public int drain() {
+        int updated = 0;
+        while (true) {
+            BatchResult result;
+            try {
+                result = transactionTemplate.execute(status -> applyNextBatch());
+            } catch (RuntimeException e) {
+                log.error("Applying Stripe events failed, will retry: {}", e.getMessage());
+                break;
+            }
+            updated += result.updated();
+            if (result.read() < batchSize || result.processed() == 0) {
+                break;
+            }
+        }
+        return updated;
+    }
+
+    @Scheduled(
+            fixedDelayString = "${stripe.webhook.purge-delay-ms:3600000}",
+            initialDelayString = "${stripe.webhook.purge-delay-ms:3600000}"
+    )
+    public void purge() {
+        int deleted = eventRepository.deleteSettledBefore(
+                LocalDateTime.now().minusHours(retentionHours), maxAttempts
+        );
+        if (deleted > 0) {
+            log.info("Purged {} settled Stripe events", deleted);
+        }
+    }
+
+    private BatchResult applyNextBatch() {
+        List<PaymentStatusEvent> batch =
+                eventRepository.findUnprocessed(maxAttempts, Pageable.ofSize(batchSize));
+        if (batch.isEmpty()) {
+            return new BatchResult(0, 0, 0);
+        }
+
+        Map<PaymentStatusName, Set<String>> sessionsByStatus =
+                new EnumMap<>(PaymentStatusName.class);
+        Set<String> eventIds = new LinkedHashSet<>();
+        for (PaymentStatusEvent event : batch) {
+            sessionsByStatus
+                    .computeIfAbsent(event.getStatus(), status -> new LinkedHashSet<>())
+                    .add(event.getSessionId());
+            eventIds.add(event.getEventId());
+        }
+
+        Long pendingId = referenceData.paymentStatus(PaymentStatusName.PENDING).getId();
+        int updated = 0;
+        for (Map.Entry<PaymentStatusName, Set<String>> entry : sessionsByStatus.entrySet()) {
+            updated += paymentRepository.updateStatusBySessionIds(
+                    entry.getValue(),
+                    pendingId,
+                    referenceData.paymentStatus(entry.getKey()).getId()
+            );
+        }
+
+        int processed = eventRepository.markApplied(eventIds, LocalDateTime.now());
+        if (processed < eventIds.size()) {
+            eventRepository.countAttempt(eventIds);
+            log.warn("{} Stripe events have no matching payment yet, will retry",
+                    eventIds.size() - processed);
+        }
+
+        updatedPayments.increment(updated);
+        log.info("Applied {} Stripe events, {} payments updated", processed, updated);
+        return new BatchResult(batch.size(), processed, updated);
+    }
+
+    private record BatchResult(int read, int processed, int updated) {
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.carsharingapp.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharingapp.exception.EntityNotFoundException;
+import org.example.carsharingapp.model.CarType;
+import org.example.carsharingapp.model.PaymentStatus;
+import org.example.carsharingapp.model.PaymentStatusName;
+import org.example.carsharingapp.model.PaymentType;
+import org.example.carsharingapp.model.PaymentTypeName;
+import org.example.carsharingapp.model.Role;
+import org.example.carsharingapp.model.RoleName;
+import org.example.carsharingapp.model.TypeName;
+import org.example.carsharingapp.repository.CarTypeRepository;
+import org.example.carsharingapp.repository.PaymentStatusRepository;
+import org.example.carsharingapp.repository.PaymentTypeRepository;
+import org.example.carsharingapp.repository.RoleRepository;
+import org.springframework.stereotype.Component;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of the enum-backed lookup tables, loaded once at startup.
+ * The rows are seeded by Liquibase and never change at runtime; call
+ * {@link #reload()} after modifying them directly in the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataRegistry {
+
+    private final PaymentStatusRepository paymentStatusRepository;
+    private final PaymentTypeRepository paymentTypeRepository;
+    private final RoleRepository roleRepository;
+    private final CarTypeRepository carTypeRepository;
+
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public synchronized void reload() {
+        snapshot = new Snapshot(
+                index(PaymentStatusName.class, paymentStatusRepository.findAll(),
+                        PaymentStatus::getPaymentStatusName),
+                index(PaymentTypeName.class, paymentTypeRepository.findAll(),
+                        PaymentType::getPaymentTypeName),
+                index(RoleName.class, roleRepository.findAll(), Role::getName),
+                index(TypeName.class, carTypeRepository.findAll(), CarType::getTypeName)
+        );
+        log.info("Reference data loaded: {} payment statuses, {} payment types, "
+                        + "{} roles, {} car types",
+                snapshot.paymentStatuses().size(), snapshot.paymentTypes().size(),
+                snapshot.roles().size(), snapshot.carTypes().size());
+    }
+
+    public PaymentStatus paymentStatus(PaymentStatusName name) {
+        return find(snapshot.paymentStatuses(), name, "Payment status");
+    }
+
+    public PaymentType paymentType(PaymentTypeName name) {
+        return find(snapshot.paymentTypes(), name, "Payment type");
+    }
+
+    public Role role(RoleName name) {
+        return find(snapshot.roles(), name, "Role");
+    }
+
+    public CarType carType(TypeName name) {
+        return find(snapshot.carTypes(), name, "Car type");
+    }
+
+    private <E extends Enum<E>, T> Map<E, T> index(
+            Class<E> keyType, List<T> rows, Function<T, E> nameOf) {
+        Map<E, T> byName = new EnumMap<>(keyType);
+        for (T row : rows) {
+            byName.put(nameOf.apply(row), row);
+        }
+        return Collections.unmodifiableMap(byName);
+    }
+
+    private <E extends Enum<E>, T> T find(Map<E, T> byName, E name, String kind) {
+        T row = byName.get(name);
+        if (row == null) {
+            throw new EntityNotFoundException(
+                    "ReferenceDataRegistry: " + kind + " " + name + " not found"
+            );
+        }
+        return row;
+    }
+
+    private record Snapshot(
+            Map<PaymentStatusName, PaymentStatus> paymentStatuses,
+            Map<PaymentTypeName, PaymentType> paymentTypes,
+            Map<RoleName, Role> roles,
+            Map<TypeName, CarType> carTypes
+    ) {
+    }
+}
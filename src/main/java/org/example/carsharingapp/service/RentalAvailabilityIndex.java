@@ -0,0 +1,192 @@
+package org.example.carsharingapp.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharingapp.dto.RentalWindowDto;
+import org.example.carsharingapp.repository.RentalRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory timeline of active (not yet returned) rentals per car, so bookings
+ * count overlapping rentals without a database round trip. Warmed once all
+ * singletons are created, which is before the web server accepts requests, and
+ * periodically reconciled against the rentals table under the per-car booking lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RentalAvailabilityIndex implements SmartInitializingSingleton {
+
+    private final RentalRepository rentalRepository;
+    private final CarBookingLocks carBookingLocks;
+    private final Map<Long, CarTimeline> timelines = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    public void warmUp() {
+        Map<Long, List<RentalWindowDto>> windowsByCar = loadActiveWindowsByCar();
+        windowsByCar.forEach((carId, windows) -> timelines.put(carId, new CarTimeline(windows)));
+        timelines.keySet().retainAll(windowsByCar.keySet());
+        log.info("Rental availability index warmed up with {} cars", windowsByCar.size());
+    }
+
+    public int countActiveRentals(Long carId, LocalDateTime rentalDate, LocalDateTime returnDate) {
+        CarTimeline timeline = timelines.get(carId);
+        return timeline == null ? 0 : timeline.countOverlapping(rentalDate, returnDate);
+    }
+
+    public Map<Long, Integer> countActiveRentalsByCar(
+            LocalDateTime rentalDate, LocalDateTime returnDate) {
+        Map<Long, Integer> countsByCar = new HashMap<>();
+        timelines.forEach((carId, timeline) -> {
+            int count = timeline.countOverlapping(rentalDate, returnDate);
+            if (count > 0) {
+                countsByCar.put(carId, count);
+            }
+        });
+        return countsByCar;
+    }
+
+    public void add(Long carId, Long rentalId, LocalDateTime rentalDate, LocalDateTime returnDate) {
+        timelines.computeIfAbsent(carId, id -> new CarTimeline(List.of()))
+                .add(new RentalWindowDto(rentalId, carId, rentalDate, returnDate));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                removeWindow(carId, rentalId);
+                            }
+                        }
+                    });
+        }
+    }
+
+    public void remove(Long carId, Long rentalId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            removeWindow(carId, rentalId);
+                        }
+                    });
+        } else {
+            removeWindow(carId, rentalId);
+        }
+    }
+
+    public void reload(Long carId) {
+        timelines.put(carId, new CarTimeline(
+                rentalRepository.findActiveRentalWindowsByCarId(carId)));
+    }
+
+    @Scheduled(
+            fixedDelayString = "${rental.availability-index.reconcile-interval-ms:600000}",
+            initialDelayString = "${rental.availability-index.reconcile-interval-ms:600000}"
+    )
+    public int reconcile() {
+        Map<Long, List<RentalWindowDto>> windowsByCar = loadActiveWindowsByCar();
+        Set<Long> carIds = new HashSet<>(timelines.keySet());
+        carIds.addAll(windowsByCar.keySet());
+
+        int mismatches = 0;
+        for (Long carId : carIds) {
+            Set<Long> expected = windowsByCar.getOrDefault(carId, List.of()).stream()
+                    .map(RentalWindowDto::rentalId)
+                    .collect(Collectors.toSet());
+            CarTimeline timeline = timelines.get(carId);
+            Set<Long> actual = timeline == null ? Set.of() : timeline.rentalIds();
+
+            if (!expected.equals(actual)) {
+                mismatches++;
+                log.warn("Rental availability index out of sync for carId={}: "
+                        + "index={}, database={}", carId, actual, expected);
+                // The snapshot may predate bookings committed since; re-read under the
+                // booking lock, when no booking of this car is in flight.
+                carBookingLocks.executeLocked(carId, () -> {
+                    reload(carId);
+                    return null;
+                });
+            }
+        }
+        return mismatches;
+    }
+
+    private void removeWindow(Long carId, Long rentalId) {
+        CarTimeline timeline = timelines.get(carId);
+        if (timeline != null) {
+            timeline.remove(rentalId);
+        }
+    }
+
+    private Map<Long, List<RentalWindowDto>> loadActiveWindowsByCar() {
+        return rentalRepository.findActiveRentalWindows().stream()
+                .collect(Collectors.groupingBy(RentalWindowDto::carId, HashMap::new,
+                        Collectors.toList()));
+    }
+
+    private static final class CarTimeline {
+
+        private static final Comparator<RentalWindowDto> BY_RENTAL_DATE = Comparator
+                .comparing(RentalWindowDto::rentalDate)
+                .thenComparing(RentalWindowDto::rentalId);
+
+        private final TreeSet<RentalWindowDto> windows = new TreeSet<>(BY_RENTAL_DATE);
+        private final Map<Long, RentalWindowDto> windowsById = new HashMap<>();
+
+        private CarTimeline(List<RentalWindowDto> windows) {
+            windows.forEach(this::add);
+        }
+
+        private synchronized void add(RentalWindowDto window) {
+            RentalWindowDto previous = windowsById.put(window.rentalId(), window);
+            if (previous != null) {
+                windows.remove(previous);
+            }
+            windows.add(window);
+        }
+
+        private synchronized void remove(Long rentalId) {
+            RentalWindowDto window = windowsById.remove(rentalId);
+            if (window != null) {
+                windows.remove(window);
+            }
+        }
+
+        private synchronized int countOverlapping(LocalDateTime from, LocalDateTime to) {
+            RentalWindowDto upperBound = new RentalWindowDto(Long.MIN_VALUE, null, to, to);
+            int count = 0;
+            for (RentalWindowDto window : windows.headSet(upperBound, false)) {
+                if (window.returnDate().isAfter(from)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private synchronized Set<Long> rentalIds() {
+            return new HashSet<>(windowsById.keySet());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.carsharingapp.service;
 
+import org.example.carsharingapp.dto.CursorPageDto;
 import org.example.carsharingapp.dto.RentalRequestDto;
 import org.example.carsharingapp.dto.RentalResponseDto;
 import org.springframework.data.domain.Page;
@@ -13,5 +14,10 @@ public interface RentalService {
 
     Page<RentalResponseDto> getRentalByCurrentUser(Pageable pageable);
 
+    CursorPageDto<RentalResponseDto> getRentalsByUserIdAndIsActive(
+            Long userId, Boolean isActive, String cursor, int size);
+
+    CursorPageDto<RentalResponseDto> getRentalByCurrentUser(String cursor, int size);
+
     RentalResponseDto returnRentalByRentalId(Long id);
 }
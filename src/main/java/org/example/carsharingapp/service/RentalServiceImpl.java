@@ -1,8 +1,10 @@
 package org.example.carsharingapp.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.carsharingapp.dto.CursorPageDto;
 import org.example.carsharingapp.dto.RentalRequestDto;
 import org.example.carsharingapp.dto.RentalResponseDto;
+import org.example.carsharingapp.exception.AccessDeniedException;
 import org.example.carsharingapp.exception.EntityNotFoundException;
 import org.example.carsharingapp.exception.NoAvailableCarsException;
 import org.example.carsharingapp.exception.PaymentException;
@@ -13,11 +15,11 @@ import org.example.carsharingapp.repository.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -26,67 +28,39 @@ import java.util.Set;
 public class RentalServiceImpl implements RentalService {
 
     private final RentalRepository rentalRepository;
-    private final CarRepository carRepository;
     private final UserService userService;
     private final RentalMapper rentalMapper;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final NotificationService telegramService;
     private final PaymentRepository paymentRepository;
-    private final PaymentStatusRepository paymentStatusRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final RentalAvailabilityIndex availabilityIndex;
+    private final CarBookingLocks carBookingLocks;
+    private final CarCache carCache;
+    private final TransactionTemplate transactionTemplate;
 
 
     @Override
-    @Transactional
     public RentalResponseDto addNewRental(RentalRequestDto request) {
         User currentUser = userService.getCurrentUser();
 
-        List<Payment> allByUserId = paymentRepository.findAllByUserId(currentUser.getId());
-
-        PaymentStatus pendingStatus = paymentStatusRepository
-                .findByPaymentStatusName(PaymentStatusName.PENDING)
-                .orElseThrow(
-                () -> new EntityNotFoundException("RentalService: No payment status found")
-        );
-
-        for (Payment payment : allByUserId) {
-            if (payment.getStatus().equals(pendingStatus)) {
-                throw new PaymentException("User: " + currentUser + " already has unpaid payment");
-            }
-        }
-
-        Car car = carRepository.findById(request.carId())
-                .orElseThrow(() -> new EntityNotFoundException("Car not found"));
-
-        List<Rental> activeRentals = rentalRepository.findActiveRentalsForCar(
-                car, request.returnDate(), request.rentalDate()
+        Rental savedRental = carBookingLocks.executeLocked(
+                request.carId(),
+                () -> transactionTemplate.execute(status -> book(currentUser, request))
         );
-
-        int availableInPeriod = car.getAvailableCars() - activeRentals.size();
-        if (availableInPeriod <= 0) {
-            throw new NoAvailableCarsException("No cars available in the selected period");
-        }
-
-        Rental rental = new Rental();
-        rental.setCar(car);
-        rental.setUser(currentUser);
-        rental.setRentalDate(request.rentalDate());
-        rental.setReturnDate(request.returnDate());
-
-        Rental savedRental = rentalRepository.save(rental);
-        Rental rentalWithDetails = rentalRepository.findById(savedRental.getId())
-                .orElseThrow(() -> new EntityNotFoundException("Rental after save not found"));
+        Car car = savedRental.getCar();
 
         telegramService.sendNotification(
                 "New rental:" + "\n"
                 + "Car: " + car.getBrand() + "\n"
                 + "Model: " + car.getModel() + "\n"
-                + "Date: " + rental.getRentalDate() + "\n"
-                + "Return date: " + rental.getReturnDate() + "\n"
+                + "Date: " + savedRental.getRentalDate() + "\n"
+                + "Return date: " + savedRental.getReturnDate() + "\n"
                 + "User: " + currentUser.getEmail()
         );
 
-        return rentalMapper.toDto(rentalWithDetails);
+        return rentalMapper.toDto(savedRental);
     }
 
     @Override
@@ -118,22 +92,115 @@ public class RentalServiceImpl implements RentalService {
     }
 
     @Override
-    @PreAuthorize("hasRole('MANAGER') or @rentalServiceImpl.isOwner(#id, principal.username)")
+    public CursorPageDto<RentalResponseDto> getRentalsByUserIdAndIsActive(
+            Long userId, Boolean isActive, String cursor, int size
+    ) {
+        long afterId = PageCursors.decode(cursor);
+        Pageable limit = Pageable.ofSize(size);
+        Slice<Rental> rentalSlice;
+
+        if (isActive == null) {
+            rentalSlice = rentalRepository
+                    .findAllByUserIdAndIdGreaterThanOrderByIdAsc(userId, afterId, limit);
+        } else if (isActive) {
+            rentalSlice = rentalRepository
+                    .findAllByUserIdAndActualReturnDateIsNullAndIdGreaterThanOrderByIdAsc(
+                            userId, afterId, limit);
+        } else {
+            rentalSlice = rentalRepository
+                    .findAllByUserIdAndActualReturnDateIsNotNullAndIdGreaterThanOrderByIdAsc(
+                            userId, afterId, limit);
+        }
+
+        return PageCursors.toPage(rentalSlice, Rental::getId, rentalMapper::toDto);
+    }
+
+    @Override
+    public CursorPageDto<RentalResponseDto> getRentalByCurrentUser(String cursor, int size) {
+        User currentUser = userService.getCurrentUser();
+        Slice<Rental> rentalSlice = rentalRepository.findAllByUserIdAndIdGreaterThanOrderByIdAsc(
+                currentUser.getId(), PageCursors.decode(cursor), Pageable.ofSize(size)
+        );
+
+        return PageCursors.toPage(rentalSlice, Rental::getId, rentalMapper::toDto);
+    }
+
+    @Override
+    @Transactional
     public RentalResponseDto returnRentalByRentalId(Long id) {
+        User currentUser = userService.getCurrentUser();
+        boolean isManager = isManager(currentUser);
+
+        int returned = rentalRepository.markReturned(
+                id, currentUser.getId(), isManager, LocalDateTime.now()
+        );
+        if (returned == 0) {
+            Long ownerId = rentalRepository.findUserIdById(id).orElseThrow(
+                    () -> new EntityNotFoundException("RentalService: No rental found")
+            );
+            if (!isManager && !ownerId.equals(currentUser.getId())) {
+                throw new AccessDeniedException(
+                        "RentalService: Rental with id " + id + " not exist for current user"
+                );
+            }
+            throw new ReturnRentalException(
+                    "RentalService: Rental with id " + id + " has already been returned"
+            );
+        }
 
-        Rental rental = rentalRepository.findById(id).orElseThrow(
+        Rental rental = rentalRepository.findWithUserAndCarById(id).orElseThrow(
                 () -> new EntityNotFoundException("RentalService: No rental found")
         );
+        RentalResponseDto response = rentalMapper.toDto(rental);
+        availabilityIndex.remove(rental.getCar().getId(), rental.getId());
+        return response;
+    }
+
+    private boolean isManager(User user) {
+        return user.getRoles().stream()
+                .anyMatch(role -> role.getName() == RoleName.ROLE_MANAGER);
+    }
+
+    private Rental book(User currentUser, RentalRequestDto request) {
+        PaymentStatus pendingStatus = referenceData.paymentStatus(PaymentStatusName.PENDING);
+
+        if (paymentRepository.existsByRentalUserIdAndStatusId(
+                currentUser.getId(), pendingStatus.getId())) {
+            throw new PaymentException("User: " + currentUser + " already has unpaid payment");
+        }
+
+        Car car = carCache.findById(request.carId())
+                .orElseThrow(() -> new EntityNotFoundException("Car not found"));
 
-        rental.setActualReturnDate(LocalDateTime.now());
-        Rental saved = rentalRepository.save(rental);
-        
-        return rentalMapper.toDto(saved);
+        Rental rental = new Rental();
+        rental.setCar(car);
+        rental.setUser(currentUser);
+        rental.setRentalDate(request.rentalDate());
+        rental.setReturnDate(request.returnDate());
+
+        return reserve(car, rental);
     }
 
-    public boolean isOwner(Long rentalId, String username) {
-        return rentalRepository.findById(rentalId)
-                .map(r -> r.getUser().getEmail().equals(username))
-                .orElse(false);
+    private Rental reserve(Car car, Rental rental) {
+        int availableInPeriod = getAvailableInPeriod(car, rental);
+        if (availableInPeriod <= 0) {
+            availabilityIndex.reload(car.getId());
+            availableInPeriod = getAvailableInPeriod(car, rental);
+        }
+        if (availableInPeriod <= 0) {
+            throw new NoAvailableCarsException("No cars available in the selected period");
+        }
+
+        Rental savedRental = rentalRepository.save(rental);
+        availabilityIndex.add(
+                car.getId(), savedRental.getId(), rental.getRentalDate(), rental.getReturnDate()
+        );
+        return savedRental;
+    }
+
+    private int getAvailableInPeriod(Car car, Rental rental) {
+        return car.getAvailableCars() - availabilityIndex.countActiveRentals(
+                car.getId(), rental.getRentalDate(), rental.getReturnDate()
+        );
     }
 }
@@ -4,5 +4,6 @@ import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 
 public interface StripePaymentService {
-    Session createCheckoutSession(Long rentalId, Long amount) throws StripeException;
+    Session createCheckoutSession(Long rentalId, Long amount, String idempotencyKey)
+            throws StripeException;
 }
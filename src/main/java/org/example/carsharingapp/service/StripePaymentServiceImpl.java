@@ -1,30 +1,31 @@
 package org.example.carsharingapp.service;
 
-import com.stripe.Stripe;
+import com.stripe.StripeClient;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.checkout.SessionCreateParams;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
-@RequiredArgsConstructor
 public class StripePaymentServiceImpl implements StripePaymentService {
 
-    @Value("${app.base-url}")
-    private String appBaseUrl;
+    private final StripeClient stripeClient;
+    private final String successUrl;
+    private final String cancelUrl;
 
-    @Value("${stripe.secret.key}")
-    private String stripeSecretKey;
+    public StripePaymentServiceImpl(
+            StripeClient stripeClient,
+            @Value("${app.base-url}") String appBaseUrl) {
+        this.stripeClient = stripeClient;
+        this.successUrl = appBaseUrl + "/payments/success";
+        this.cancelUrl = appBaseUrl + "/payments/cancel";
+    }
 
     @Override
-    public Session createCheckoutSession(Long rentalId, Long amount) throws StripeException {
-        Stripe.apiKey = stripeSecretKey;
-
-        String successUrl = appBaseUrl + "/payments/success";
-        String cancelUrl = appBaseUrl + "/payments/cancel";
-
+    public Session createCheckoutSession(Long rentalId, Long amount, String idempotencyKey)
+            throws StripeException {
         SessionCreateParams params = SessionCreateParams.builder()
                 .setMode(SessionCreateParams.Mode.PAYMENT)
                 .setSuccessUrl(successUrl)
@@ -49,6 +50,10 @@ public class StripePaymentServiceImpl implements StripePaymentService {
                                 .build())
                 .build();
 
-        return Session.create(params);
+        RequestOptions options = RequestOptions.builder()
+                .setIdempotencyKey(idempotencyKey)
+                .build();
+
+        return stripeClient.checkout().sessions().create(params, options);
     }
 }
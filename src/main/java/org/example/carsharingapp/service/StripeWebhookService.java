@@ -0,0 +1,6 @@
+package org.example.carsharingapp.service;
+
+public interface StripeWebhookService {
+
+    void receive(String payload, String signatureHeader);
+}
@@ -0,0 +1,89 @@
+package org.example.carsharingapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.net.Webhook;
+import lombok.extern.slf4j.Slf4j;
+import org.example.carsharingapp.dto.PaymentStatusEventDto;
+import org.example.carsharingapp.exception.StripeWebhookException;
+import org.example.carsharingapp.model.PaymentStatusName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+public class StripeWebhookServiceImpl implements StripeWebhookService {
+
+    private static final String SESSION_COMPLETED = "checkout.session.completed";
+    private static final String ASYNC_PAYMENT_SUCCEEDED =
+            "checkout.session.async_payment_succeeded";
+    private static final String PAYMENT_STATUS_PAID = "paid";
+
+    private final PaymentStatusEventQueue eventQueue;
+    private final ObjectMapper objectMapper;
+    private final String webhookSecret;
+    private final long toleranceSeconds;
+
+    public StripeWebhookServiceImpl(
+            PaymentStatusEventQueue eventQueue,
+            ObjectMapper objectMapper,
+            @Value("${stripe.webhook.secret}") String webhookSecret,
+            @Value("${stripe.webhook.tolerance-seconds:300}") long toleranceSeconds) {
+        this.eventQueue = eventQueue;
+        this.objectMapper = objectMapper;
+        this.webhookSecret = webhookSecret;
+        this.toleranceSeconds = toleranceSeconds;
+    }
+
+    @Override
+    public void receive(String payload, String signatureHeader) {
+        try {
+            Webhook.Signature.verifyHeader(
+                    payload, signatureHeader, webhookSecret, toleranceSeconds
+            );
+        } catch (SignatureVerificationException e) {
+            log.warn("Rejected Stripe webhook with invalid signature: {}", e.getMessage());
+            throw new StripeWebhookException("StripeWebhookService: Invalid signature");
+        }
+
+        JsonNode event = readEvent(payload);
+        String type = event.path("type").asText();
+        JsonNode session = event.path("data").path("object");
+        if (!isPaid(type, session)) {
+            log.debug("Ignoring Stripe event {} of type {}", event.path("id").asText(), type);
+            return;
+        }
+
+        eventQueue.offer(new PaymentStatusEventDto(
+                event.path("id").asText(),
+                session.path("id").asText(),
+                PaymentStatusName.PAID
+        ));
+    }
+
+    /**
+     * A completed checkout is only paid when Stripe says so; delayed payment
+     * methods complete as unpaid and report success in a later event.
+     */
+    private boolean isPaid(String type, JsonNode session) {
+        if (ASYNC_PAYMENT_SUCCEEDED.equals(type)) {
+            return true;
+        }
+        return SESSION_COMPLETED.equals(type)
+                && PAYMENT_STATUS_PAID.equals(session.path("payment_status").asText());
+    }
+
+    private JsonNode readEvent(String payload) {
+        try {
+            JsonNode event = objectMapper.readTree(payload);
+            if (!event.hasNonNull("id") || !event.path("data").path("object").hasNonNull("id")) {
+                throw new StripeWebhookException("StripeWebhookService: Malformed event");
+            }
+            return event;
+        } catch (JsonProcessingException e) {
+            throw new StripeWebhookException("StripeWebhookService: Malformed event");
+        }
+    }
+}
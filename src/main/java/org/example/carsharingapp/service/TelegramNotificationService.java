@@ -1,38 +1,190 @@
 package org.example.carsharingapp.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Queues notifications in memory and sends them to Telegram from a background
+ * dispatcher, coalescing queued messages into as few requests as possible.
+ * Messages sent inside a transaction are queued only after it commits.
+ * When the queue is full new messages are dropped and counted.
+ */
+@Slf4j
 @Service
 public class TelegramNotificationService implements NotificationService {
 
-    @Value("${telegram.api.key}")
-    private String botToken;
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final String MESSAGE_SEPARATOR = "\n\n";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
 
-    @Value("${telegram.chat.id}")
-    private String chatId;
+    private final String sendMessageUrl;
+    private final String chatId;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final BlockingQueue<String> queue;
+    private final RestTemplate restTemplate;
+    private final AtomicLong droppedMessages = new AtomicLong();
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public TelegramNotificationService(
+            @Value("${telegram.api.key}") String botToken,
+            @Value("${telegram.chat.id}") String chatId,
+            @Value("${telegram.api.url:https://api.telegram.org}") String apiUrl,
+            @Value("${telegram.queue.capacity:1000}") int queueCapacity,
+            @Value("${telegram.batch.size:20}") int batchSize,
+            @Value("${telegram.retry.max-attempts:3}") int maxAttempts,
+            @Value("${telegram.retry.backoff-ms:500}") long retryBackoffMs) {
+        this.sendMessageUrl = apiUrl + "/bot" + botToken + "/sendMessage";
+        this.chatId = chatId;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(CONNECT_TIMEOUT);
+        requestFactory.setReadTimeout(READ_TIMEOUT);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::dispatch, "telegram-notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.join(SHUTDOWN_TIMEOUT_MS);
+    }
 
     @Override
     public void sendNotification(String message) {
-        String url = "https://api.telegram.org/bot" + botToken + "/sendMessage";
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            enqueue(message);
+                        }
+                    });
+            return;
+        }
+        enqueue(message);
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    private void enqueue(String message) {
+        if (!queue.offer(message)) {
+            long dropped = droppedMessages.incrementAndGet();
+            log.warn("Telegram notification queue is full, message dropped (total dropped={})",
+                    dropped);
+        }
+    }
+
+    private void dispatch() {
+        while (running || !queue.isEmpty()) {
+            try {
+                String first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<String> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                for (String text : coalesce(batch)) {
+                    sendWithRetry(text);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<String> coalesce(List<String> messages) {
+        List<String> texts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String message : messages) {
+            String text = message.length() > MAX_MESSAGE_LENGTH
+                    ? message.substring(0, MAX_MESSAGE_LENGTH)
+                    : message;
+            if (!current.isEmpty()
+                    && current.length() + MESSAGE_SEPARATOR.length() + text.length()
+                    > MAX_MESSAGE_LENGTH) {
+                texts.add(current.toString());
+                current.setLength(0);
+            }
+            if (!current.isEmpty()) {
+                current.append(MESSAGE_SEPARATOR);
+            }
+            current.append(text);
+        }
+        if (!current.isEmpty()) {
+            texts.add(current.toString());
+        }
+        return texts;
+    }
 
+    private void sendWithRetry(String text) throws InterruptedException {
         Map<String, String> requestBody = new HashMap<>();
         requestBody.put("chat_id", chatId);
-        requestBody.put("text", message);
+        requestBody.put("text", text);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
 
         HttpEntity<Map<String, String>> entity = new HttpEntity<>(requestBody, headers);
 
-        restTemplate.postForObject(url, entity, String.class);
+        long backoff = retryBackoffMs;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                restTemplate.postForObject(sendMessageUrl, entity, String.class);
+                return;
+            } catch (RestClientException e) {
+                if (attempt == maxAttempts) {
+                    log.error("Telegram notification dropped after {} attempts, error={}",
+                            attempt, e.getMessage());
+                    return;
+                }
+                log.warn("Telegram notification attempt {} failed, retrying in {} ms",
+                        attempt, backoff);
+                Thread.sleep(backoff);
+                backoff *= 2;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -14,6 +14,7 @@ import org.example.carsharingapp.model.RoleName;
 import org.example.carsharingapp.model.User;
 import org.example.carsharingapp.repository.RoleRepository;
 import org.example.carsharingapp.repository.UserRepository;
+import org.example.carsharingapp.security.UserPrincipalCache;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -33,6 +34,8 @@ public class UserServiceImpl implements UserService {
     private final UserMapper userMapper;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache userPrincipalCache;
+    private final ReferenceDataRegistry referenceData;
 
     @Override
     public UserResponseDto register(UserRegistrationRequestDto request) {
@@ -45,11 +48,7 @@ public class UserServiceImpl implements UserService {
             );
         }
 
-        Optional<Role> customerRoleByName = roleRepository.findByName(RoleName.ROLE_CUSTOMER);
-        Role customerRole = customerRoleByName.orElseThrow(
-                () -> new EntityNotFoundException(
-                        "UserService: Customer role not found"
-                ));
+        Role customerRole = referenceData.role(RoleName.ROLE_CUSTOMER);
 
         User user = userMapper.toModel(request);
         user.setPassword(passwordEncoder.encode(user.getPassword()));
@@ -69,7 +68,14 @@ public class UserServiceImpl implements UserService {
     @Override
     public User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return (User) authentication.getPrincipal();
+        if (authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return (User) userPrincipalCache.get(authentication.getName(), email ->
+                userRepository.findByEmail(email).orElseThrow(
+                        () -> new EntityNotFoundException(
+                                "UserService: User " + email + " not found"
+                        )));
     }
 
     @Override
@@ -105,6 +111,7 @@ public class UserServiceImpl implements UserService {
 
         userById.setRoles(roles);
         User saved = userRepository.save(userById);
+        userPrincipalCache.invalidate(saved.getEmail());
 
         return userMapper.toDto(saved);
     }
@@ -116,14 +123,22 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public UserResponseDto updateUserProfileInfo(UserUpdateProfileInfoRequestDto requestDto) {
-        User currentUser = getCurrentUser();
+        Long currentUserId = getCurrentUser().getId();
+        User user = userRepository.findByIdWithRoles(currentUserId).orElseThrow(
+                () -> new EntityNotFoundException(
+                        "UserService: User not found"
+                ));
+        String previousEmail = user.getEmail();
 
-        currentUser.setEmail(requestDto.email());
-        currentUser.setFirstName(requestDto.firstName());
-        currentUser.setLastName(requestDto.lastName());
+        user.setEmail(requestDto.email());
+        user.setFirstName(requestDto.firstName());
+        user.setLastName(requestDto.lastName());
 
-        User saved = userRepository.save(currentUser);
+        User saved = userRepository.save(user);
+        userPrincipalCache.invalidate(previousEmail);
+        userPrincipalCache.invalidate(saved.getEmail());
         return userMapper.toDto(saved);
     }
 
@@ -0,0 +1,138 @@
+package org.example.carsharingapp.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExpiringCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    @DisplayName("Should load value once and count hits and misses")
+    public void get_repeatedKey_loadsOnce() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), clock);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals("value", cache.get("key", key -> {
+                loads.incrementAndGet();
+                return "value";
+            }));
+        }
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(4, cache.hitCount());
+        Assertions.assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    @DisplayName("Should expire entries after time to live")
+    public void getIfPresent_afterTtl_returnEmpty() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), clock);
+        cache.put("key", "value");
+
+        clock.advance(Duration.ofSeconds(59));
+        Assertions.assertEquals(Optional.of("value"), cache.getIfPresent("key"));
+
+        clock.advance(Duration.ofSeconds(1));
+        Assertions.assertEquals(Optional.empty(), cache.getIfPresent("key"));
+        Assertions.assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    @DisplayName("Should never keep entry longer than requested expiry")
+    public void put_withEarlierExpiry_expiresEarlier() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), clock);
+        cache.put("key", "value", clock.instant().plusSeconds(5));
+
+        clock.advance(Duration.ofSeconds(5));
+
+        Assertions.assertEquals(Optional.empty(), cache.getIfPresent("key"));
+    }
+
+    @Test
+    @DisplayName("Should evict oldest entries when maximum size exceeded")
+    public void put_overMaximumSize_evictsOldest() {
+        ExpiringCache<Integer, Integer> cache =
+                new ExpiringCache<>(10, Duration.ofMinutes(1), clock);
+
+        for (int i = 0; i < 11; i++) {
+            cache.put(i, i);
+            clock.advance(Duration.ofMillis(1));
+        }
+
+        Assertions.assertTrue(cache.size() <= 10);
+        Assertions.assertEquals(Optional.empty(), cache.getIfPresent(0));
+        Assertions.assertEquals(Optional.of(10), cache.getIfPresent(10));
+    }
+
+    @Test
+    @DisplayName("Should keep first value when putting absent key twice")
+    public void putIfAbsent_existingKey_returnExistingValue() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), clock);
+
+        Assertions.assertEquals(Optional.empty(), cache.putIfAbsent("key", "first"));
+        Assertions.assertEquals(Optional.of("first"), cache.putIfAbsent("key", "second"));
+    }
+
+    @Test
+    @DisplayName("Should not cache value loaded before the key was invalidated")
+    public void get_invalidatedWhileLoading_doesNotCacheStaleValue() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), clock);
+
+        String loaded = cache.get("key", key -> {
+            cache.invalidate(key);
+            return "stale";
+        });
+
+        Assertions.assertEquals("stale", loaded);
+        Assertions.assertEquals(Optional.empty(), cache.getIfPresent("key"));
+        Assertions.assertEquals("fresh", cache.get("key", key -> "fresh"));
+        Assertions.assertEquals(Optional.of("fresh"), cache.getIfPresent("key"));
+    }
+
+    @Test
+    @DisplayName("Should reject put with generation captured before invalidation")
+    public void putIfGeneration_afterInvalidateAll_returnFalse() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), clock);
+        long generation = cache.generation("key");
+
+        cache.invalidateAll();
+
+        Assertions.assertFalse(cache.putIfGeneration("key", "stale", generation));
+        Assertions.assertTrue(cache.putIfGeneration("key", "fresh", cache.generation("key")));
+        Assertions.assertEquals(Optional.of("fresh"), cache.getIfPresent("key"));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-09-11T10:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+    }
+}
@@ -2,8 +2,11 @@ package org.example.carsharingapp.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.carsharingapp.dto.CarImportResultDto;
 import org.example.carsharingapp.dto.CarRequestDto;
 import org.example.carsharingapp.dto.CarResponseDto;
+import org.example.carsharingapp.dto.FleetCarDto;
+import org.example.carsharingapp.repository.CarRepository;
 import org.example.carsharingapp.service.NotificationService;
 import org.example.carsharingapp.service.OverdueRentalChecker;
 import org.example.carsharingapp.service.StripePaymentService;
@@ -13,6 +16,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
@@ -25,6 +29,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import java.math.BigDecimal;
+import java.util.List;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class CarControllerTest {
@@ -43,6 +48,9 @@ public class CarControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CarRepository carRepository;
+
     @BeforeAll
     public static void beforeAll(
             @Autowired WebApplicationContext webApplicationContext
@@ -226,4 +234,154 @@ public class CarControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should answer 304 for current catalog ETag until a car changes")
+    @WithMockUser(username = "manager", roles = {"MANAGER"})
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void getAllCars_matchingETag_returnNotModified() throws Exception {
+        MvcResult firstResult = mockMvc.perform(MockMvcRequestBuilders.get("/cars"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(
+                        HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andReturn();
+        String eTag = firstResult.getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(eTag);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/cars")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        CarRequestDto request = new CarRequestDto(
+                "testUpdate",
+                "testUpdate",
+                "SUV",
+                5,
+                BigDecimal.valueOf(15.00)
+        );
+        mockMvc.perform(MockMvcRequestBuilders.put("/cars/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/cars")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Should merge imported CSV rows into existing and new cars")
+    @WithMockUser(username = "manager", roles = {"MANAGER"})
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void importCarsFromCsv_mixedRows_mergesAndReportsErrors() throws Exception {
+        String csv = """
+                model,brand,type,available_cars,daily_price
+                test,test,SEDAN,2,10
+                Golf,VW,HATCHBACK,1,9.99
+                Golf,VW,HATCHBACK,3,9.99
+                Up,VW,TRUCK,1,5
+                """;
+
+        MvcResult mvcResult = mockMvc.perform(
+                        MockMvcRequestBuilders.post("/cars/import")
+                                .contentType("text/csv")
+                                .content(csv)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        CarImportResultDto result = objectMapper.readValue(
+                mvcResult.getResponse().getContentAsString(), CarImportResultDto.class
+        );
+
+        Assertions.assertEquals(4, result.rowsRead());
+        Assertions.assertEquals(3, result.rowsImported());
+        Assertions.assertEquals(1, result.carsCreated());
+        Assertions.assertEquals(1, result.carsUpdated());
+        Assertions.assertEquals(1, result.errors().size());
+        Assertions.assertEquals(5, result.errors().get(0).line());
+
+        List<FleetCarDto> fleet = carRepository.findFleet();
+        Assertions.assertEquals(3, fleet.size());
+        Assertions.assertEquals(3, fleet.get(0).availableCars());
+        FleetCarDto golf = fleet.stream()
+                .filter(car -> car.model().equals("Golf"))
+                .findFirst()
+                .orElseThrow();
+        Assertions.assertEquals(4, golf.availableCars());
+    }
+
+    @Test
+    @DisplayName("Should read quoted CSV fields and report unterminated quotes")
+    @WithMockUser(username = "manager", roles = {"MANAGER"})
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void importCarsFromCsv_quotedFields_parsesCommasInsideQuotes() throws Exception {
+        String csv = """
+                model,brand,type,available_cars,daily_price
+                "Golf, GTI","The ""Group"" VW",HATCHBACK,2,19.99
+                "Polo,VW,HATCHBACK,1,9.99
+                """;
+
+        MvcResult mvcResult = mockMvc.perform(
+                        MockMvcRequestBuilders.post("/cars/import")
+                                .contentType("text/csv")
+                                .content(csv)
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        CarImportResultDto result = objectMapper.readValue(
+                mvcResult.getResponse().getContentAsString(), CarImportResultDto.class
+        );
+
+        Assertions.assertEquals(1, result.rowsImported());
+        Assertions.assertEquals(1, result.errors().size());
+        Assertions.assertEquals(3, result.errors().get(0).line());
+
+        List<FleetCarDto> fleet = carRepository.findFleet();
+        Assertions.assertEquals(1, fleet.size());
+        Assertions.assertEquals("Golf, GTI", fleet.get(0).model());
+        Assertions.assertEquals("The \"Group\" VW", fleet.get(0).brand());
+    }
+
+    @Test
+    @DisplayName("Should reject CSV import without required header columns")
+    @WithMockUser(username = "manager", roles = {"MANAGER"})
+    public void importCarsFromCsv_missingColumns_returnBadRequest() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/cars/import")
+                                .contentType("text/csv")
+                                .content("model,brand\nGolf,VW\n")
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
 }
@@ -0,0 +1,238 @@
+package org.example.carsharingapp.controller;
+
+import com.stripe.net.Webhook;
+import org.example.carsharingapp.service.NotificationService;
+import org.example.carsharingapp.service.OverdueRentalChecker;
+import org.example.carsharingapp.service.PaymentStatusEventQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "stripe.webhook.drain-delay-ms=3600000"
+)
+public class PaymentWebhookReplayTest {
+
+    private static final String WEBHOOK_SECRET = "whsec_test";
+    private static final int PAYMENTS = 5_000;
+
+    @MockitoBean
+    private NotificationService telegramService;
+
+    @MockitoBean
+    private OverdueRentalChecker overdueRentalChecker;
+
+    protected static MockMvc mockMvc;
+
+    @Autowired
+    private PaymentStatusEventQueue eventQueue;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void beforeAll(@Autowired WebApplicationContext applicationContext) {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(applicationContext)
+                .apply(SecurityMockMvcConfigurers.springSecurity())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should mark every paid session once when replaying ten thousand events")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-returned-rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void stripeWebhook_replayedEvents_updatesEachPaymentOnce() throws Exception {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO payments
+                            (id, status_id, type_id, rental_id, session_url, session_id,
+                             amount_to_pay)
+                        VALUES (?, 1, 1, 1, 'url', ?, 10.00)
+                        """,
+                IntStream.range(0, PAYMENTS)
+                        .mapToObj(i -> new Object[] {i + 1, "cs_replay_" + i})
+                        .toList());
+
+        List<Integer> deliveries = new ArrayList<>();
+        IntStream.range(0, PAYMENTS).forEach(i -> {
+            deliveries.add(i);
+            deliveries.add(i);
+        });
+        Collections.shuffle(deliveries, new Random(42));
+
+        for (int i : deliveries) {
+            deliver(completedEvent("evt_replay_" + i, "cs_replay_" + i));
+        }
+
+        Assertions.assertEquals(PAYMENTS, eventQueue.drain());
+        Assertions.assertEquals(0, eventQueue.drain());
+        Assertions.assertEquals(PAYMENTS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE status_id = 2", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should mark an async payment paid only after Stripe reports success")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-returned-rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void stripeWebhook_asyncPayment_updatesOnlyAfterSuccess() throws Exception {
+        jdbcTemplate.update("""
+                INSERT INTO payments
+                    (id, status_id, type_id, rental_id, session_url, session_id, amount_to_pay)
+                VALUES (1, 1, 1, 1, 'url', 'cs_async', 10.00)
+                """);
+
+        deliver(sessionEvent(
+                "evt_async_completed", "checkout.session.completed", "cs_async", "unpaid"));
+        Assertions.assertEquals(0, eventQueue.drain());
+        Assertions.assertEquals(1, paymentStatus("cs_async"));
+
+        deliver(sessionEvent(
+                "evt_async_succeeded", "checkout.session.async_payment_succeeded",
+                "cs_async", "paid"));
+        Assertions.assertEquals(1, eventQueue.drain());
+        Assertions.assertEquals(2, paymentStatus("cs_async"));
+    }
+
+    @Test
+    @DisplayName("Should apply a stored event once its payment appears")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-returned-rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void stripeWebhook_paymentNotYetStored_retriesEvent() throws Exception {
+        deliver(completedEvent("evt_early", "cs_early"));
+        Assertions.assertEquals(0, eventQueue.drain());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_status_events WHERE processed_at IS NULL",
+                Integer.class));
+
+        jdbcTemplate.update("""
+                INSERT INTO payments
+                    (id, status_id, type_id, rental_id, session_url, session_id, amount_to_pay)
+                VALUES (1, 1, 1, 1, 'url', 'cs_early', 10.00)
+                """);
+
+        Assertions.assertEquals(1, eventQueue.drain());
+        Assertions.assertEquals(2, paymentStatus("cs_early"));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_status_events WHERE processed_at IS NULL",
+                Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should reject webhook with invalid signature")
+    public void stripeWebhook_invalidSignature_returnBadRequest() throws Exception {
+        String payload = completedEvent("evt_forged", "cs_forged");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/payments/webhook")
+                        .header("Stripe-Signature", "t=1,v1=forged")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    private String completedEvent(String eventId, String sessionId) {
+        return sessionEvent(eventId, "checkout.session.completed", sessionId, "paid");
+    }
+
+    private String sessionEvent(
+            String eventId, String type, String sessionId, String paymentStatus) {
+        return """
+                {"id": "%s", "object": "event", "type": "%s",
+                 "data": {"object": {"id": "%s", "object": "checkout.session",
+                                     "payment_status": "%s"}}}
+                """.formatted(eventId, type, sessionId, paymentStatus);
+    }
+
+    private void deliver(String payload) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/payments/webhook")
+                        .header("Stripe-Signature", sign(payload))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    private Integer paymentStatus(String sessionId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT status_id FROM payments WHERE session_id = ?", Integer.class, sessionId);
+    }
+
+    private String sign(String payload) throws Exception {
+        long timestamp = Webhook.Util.getTimeNow();
+        String signature = Webhook.Util.computeHmacSha256(
+                WEBHOOK_SECRET, timestamp + "." + payload
+        );
+        return "t=" + timestamp + ",v1=" + signature;
+    }
+}
@@ -26,6 +26,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class RentalControllerTest {
@@ -97,6 +98,41 @@ public class RentalControllerTest {
         Assertions.assertEquals("test", result.model());
     }
 
+    @Test
+    @WithUserDetails("one@test.com")
+    @DisplayName("Should return original rental when request retried with same idempotency key")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(
+            scripts = "classpath:database/add-users-roles-relations.sql"
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void addNewRental_retriedWithIdempotencyKey_returnOriginalRental() throws Exception {
+        RentalRequestDto requestDto = new RentalRequestDto(
+                LocalDateTime.of(2025, 9, 11, 10, 0, 0),
+                LocalDateTime.of(2025, 9, 15, 18, 0, 0),
+                1L
+        );
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        RentalResponseDto first = postRental(requestDto, idempotencyKey);
+        RentalResponseDto retry = postRental(requestDto, idempotencyKey);
+
+        Assertions.assertEquals(first.id(), retry.id());
+    }
+
     @Test
     @WithMockUser(username = "manager", roles = {"MANAGER"})
     @DisplayName("Should return rentals by user id")
@@ -221,4 +257,89 @@ public class RentalControllerTest {
         Assertions.assertNotNull(result);
         Assertions.assertEquals(rentalId, result.id());
     }
+
+    @Test
+    @WithUserDetails("one@test.com")
+    @DisplayName("Should reject returning a rental twice")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-users-roles-relations.sql"
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-returned-rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void returnRental_alreadyReturned_returnConflict() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/rentals/{id}/return", 1L)
+                                .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    @WithUserDetails("three@test.com")
+    @DisplayName("Should deny returning a rental of another user")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-users-roles-relations.sql"
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add_default_rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void returnRental_notOwner_returnForbidden() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/rentals/{id}/return", 1L)
+                                .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    private RentalResponseDto postRental(RentalRequestDto requestDto, String idempotencyKey)
+            throws Exception {
+        MvcResult mvcResult = mockMvc.perform(
+                        MockMvcRequestBuilders.post("/rentals")
+                                .header("Idempotency-Key", idempotencyKey)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(requestDto))
+                )
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+
+        return objectMapper.readValue(
+                mvcResult.getResponse().getContentAsString(),
+                RentalResponseDto.class
+        );
+    }
 }
@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.carsharingapp.dto.UserResponseDto;
 import org.example.carsharingapp.dto.UserRoleUpdateRequestDto;
 import org.example.carsharingapp.dto.UserUpdateProfileInfoRequestDto;
+import org.example.carsharingapp.model.User;
+import org.example.carsharingapp.security.JwtUtil;
+import org.example.carsharingapp.security.UserPrincipalCache;
 import org.example.carsharingapp.service.NotificationService;
 import org.example.carsharingapp.service.OverdueRentalChecker;
 import org.example.carsharingapp.service.StripePaymentService;
@@ -13,6 +16,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.jdbc.Sql;
@@ -22,6 +26,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
+import java.util.List;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class UserControllerTest {
@@ -40,6 +45,12 @@ public class UserControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     @BeforeAll
     static void beforeAll(
             @Autowired WebApplicationContext applicationContext
@@ -181,4 +192,59 @@ public class UserControllerTest {
         Assertions.assertEquals("UpdatedLastName", result.lastName());
         Assertions.assertTrue(result.roles().length > 0); // role powinny pozostać bez zmian
     }
+
+    @Test
+    @DisplayName("Should serve updated profile through the token filter without mutating "
+            + "the cached principal")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-users-roles-relations.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void updateUserProfileInfo_cachedPrincipal_reloadsAfterUpdate() throws Exception {
+        String bearer = "Bearer " + jwtUtil.generateToken("one@test.com", List.of());
+        userPrincipalCache.invalidate("one@test.com");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/user/me")
+                        .header("Authorization", bearer))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        UserDetails cached = userPrincipalCache.get("one@test.com", email -> {
+            throw new AssertionError("Principal should be cached by the token filter");
+        });
+
+        UserUpdateProfileInfoRequestDto requestDto = new UserUpdateProfileInfoRequestDto(
+                "one@test.com", "Renamed", "one"
+        );
+        mockMvc.perform(MockMvcRequestBuilders.put("/user/me")
+                        .header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Assertions.assertEquals("one", ((User) cached).getFirstName());
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/user/me")
+                        .header("Authorization", bearer))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+        UserResponseDto result = objectMapper.readValue(
+                mvcResult.getResponse().getContentAsString(), UserResponseDto.class
+        );
+
+        Assertions.assertEquals("Renamed", result.firstName());
+        Assertions.assertNotSame(cached, userPrincipalCache.get("one@test.com", email -> {
+            throw new AssertionError("Principal should be reloaded by the token filter");
+        }));
+    }
 }
@@ -1,5 +1,7 @@
 package org.example.carsharingapp.repository;
 
+import org.example.carsharingapp.dto.CarResponseLiteDto;
+import org.example.carsharingapp.dto.FleetCarDto;
 import org.example.carsharingapp.model.Car;
 import org.example.carsharingapp.model.CarType;
 import org.example.carsharingapp.model.TypeName;
@@ -9,8 +11,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.jdbc.Sql;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @DataJpaTest
@@ -55,4 +61,53 @@ public class CarRepositoryTest {
         Assertions.assertEquals(0, car.getDailyPrice().compareTo(BigDecimal.TEN));
         Assertions.assertInstanceOf(CarType.class, car.getType());
     }
+
+    @Test
+    @DisplayName("Should return lite projection page of cars")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void findAllLite_twoCars_returnProjectionPage() {
+        Page<CarResponseLiteDto> page = carRepository.findAllLite(
+                PageRequest.of(0, 1, Sort.by("id"))
+        );
+
+        Assertions.assertEquals(2, page.getTotalElements());
+        Assertions.assertEquals(1, page.getContent().size());
+        Assertions.assertEquals(
+                new CarResponseLiteDto(1L, "test", "test"), page.getContent().get(0)
+        );
+    }
+
+    @Test
+    @DisplayName("Should return fleet projection with type and unit count")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void findFleet_twoCars_returnProjection() {
+        List<FleetCarDto> fleet = carRepository.findFleet();
+
+        Assertions.assertEquals(2, fleet.size());
+        Assertions.assertEquals(1L, fleet.get(0).id());
+        Assertions.assertNotNull(fleet.get(0).type());
+        Assertions.assertEquals(1, fleet.get(0).availableCars());
+    }
 }
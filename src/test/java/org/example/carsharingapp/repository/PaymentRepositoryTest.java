@@ -1,27 +1,34 @@
 package org.example.carsharingapp.repository;
 
+import jakarta.persistence.EntityManagerFactory;
 import org.example.carsharingapp.model.Payment;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.jdbc.Sql;
 
-import java.util.List;
-
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 public class PaymentRepositoryTest {
 
     @Autowired
     PaymentRepository paymentRepository;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    TestEntityManager entityManager;
+
     @Test
     @DisplayName("Should return valid payment by user id")
     @Sql(
@@ -54,4 +61,83 @@ public class PaymentRepositoryTest {
         Assertions.assertTrue(payments.hasContent());
     }
 
+    @Test
+    @DisplayName("Should detect pending payment only for its owner")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add_default_rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-payment.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void existsByRentalUserIdAndStatusId_pendingPayment_returnTrueForOwner() {
+        Assertions.assertTrue(paymentRepository.existsByRentalUserIdAndStatusId(1L, 1L));
+        Assertions.assertFalse(paymentRepository.existsByRentalUserIdAndStatusId(1L, 2L));
+        Assertions.assertFalse(paymentRepository.existsByRentalUserIdAndStatusId(2L, 1L));
+    }
+
+    @Test
+    @DisplayName("Should load payments page with status, type and car in one statement")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add_default_rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-payment.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void findAll_paymentsPage_fetchesAssociationsWithoutExtraSelects() {
+        Statistics statistics = entityManagerFactory
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+
+        statistics.clear();
+        assertFetched(paymentRepository.findAllByUserId(1L, PageRequest.of(0, 20)));
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        statistics.clear();
+        assertFetched(paymentRepository.findAll(PageRequest.of(0, 20)));
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private void assertFetched(Page<Payment> payments) {
+        Payment payment = payments.getContent().get(0);
+        Assertions.assertEquals("PENDING", payment.getStatus().getPaymentStatusName().name());
+        Assertions.assertNotNull(payment.getType().getPaymentTypeName());
+        Assertions.assertEquals("test", payment.getRental().getCar().getBrand());
+    }
 }
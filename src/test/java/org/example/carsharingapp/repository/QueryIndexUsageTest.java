@@ -0,0 +1,137 @@
+package org.example.carsharingapp.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.example.carsharingapp.repository.QueryIndexUsageTest$SqlCapture")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class QueryIndexUsageTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 9, 11, 12, 0, 0);
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("Active rental windows of one car should be served by car period index")
+    public void findActiveRentalWindowsByCarId_explain_usesCarPeriodIndex() {
+        rentalRepository.findActiveRentalWindowsByCarId(1L);
+
+        assertIndexUsable(capturedSelect("rentals"), "rentals", "idx_rentals_car_active_period",
+                1L);
+    }
+
+    @Test
+    @DisplayName("Availability index warm-up and reconcile should use active return date index")
+    public void findActiveRentalWindows_explain_usesActiveReturnDateIndex() {
+        rentalRepository.findActiveRentalWindows();
+
+        assertIndexUsable(capturedSelect("rentals"), "rentals",
+                "idx_rentals_active_return_date");
+    }
+
+    @Test
+    @DisplayName("Overdue rentals lookup should be served by active return date index")
+    public void findOverdueRentals_explain_usesActiveReturnDateIndex() {
+        rentalRepository.findOverdueRentalsAfter(NOW, 0L, Pageable.ofSize(100));
+
+        assertIndexUsable(capturedSelect("rentals"), "rentals", "idx_rentals_active_return_date",
+                NOW, 0L, 100);
+    }
+
+    @Test
+    @DisplayName("Active rentals by user lookup should be served by user active index")
+    public void findAllByUserIdAndActualReturnDateIsNull_explain_usesUserActiveIndex() {
+        rentalRepository.findAllByUserIdAndActualReturnDateIsNull(1L, Pageable.ofSize(10));
+
+        assertIndexUsable(capturedSelect("rentals"), "rentals", "idx_rentals_user_active",
+                1L, 10);
+    }
+
+    @Test
+    @DisplayName("Pending payment check should be served by rental status index")
+    public void existsByRentalUserIdAndStatusId_explain_usesRentalStatusIndex() {
+        paymentRepository.existsByRentalUserIdAndStatusId(1L, 1L);
+
+        assertIndexUsable(capturedSelect("payments"), "payments",
+                "idx_payments_rental_status_deleted", 1L, 1L, 1);
+    }
+
+    @Test
+    @DisplayName("Pending payment lookup by rental should be served by rental status index")
+    public void findFirstByRentalIdAndStatusId_explain_usesRentalStatusIndex() {
+        paymentRepository.findFirstByRentalIdAndStatusIdOrderByIdDesc(1L, 1L);
+
+        assertIndexUsable(capturedSelect("payments"), "payments",
+                "idx_payments_rental_status_deleted", 1L, 1L, 1);
+    }
+
+    private String capturedSelect(String table) {
+        Pattern from = Pattern.compile("\\bfrom\\s+" + table + "\\b", Pattern.CASE_INSENSITIVE);
+        return SqlCapture.STATEMENTS.stream()
+                .filter(sql -> from.matcher(sql).find())
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(
+                        "No query on " + table + " captured: " + SqlCapture.STATEMENTS));
+    }
+
+    private void assertIndexUsable(String sql, String table, String indexName, Object... args) {
+        Matcher alias = Pattern.compile(
+                "\\b(?:from|join)\\s+" + table + "\\s+(\\w+)", Pattern.CASE_INSENSITIVE
+        ).matcher(sql);
+        Assertions.assertTrue(alias.find(), "No alias for " + table + " in " + sql);
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, args);
+        Map<String, Object> row = plan.stream()
+                .filter(step -> alias.group(1).equals(step.get("table")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No plan step for " + table + ": " + plan));
+
+        Object possibleKeys = row.get("possible_keys");
+        Assertions.assertNotNull(possibleKeys, "No index considered: " + plan);
+        Assertions.assertTrue(possibleKeys.toString().contains(indexName),
+                indexName + " not considered for " + sql + ": " + plan);
+        Assertions.assertNotEquals("ALL", row.get("type"), "Full scan planned: " + plan);
+    }
+
+    /**
+     * Records the SQL Hibernate sends, so the plans checked here are the plans of
+     * the repository queries rather than of hand-written equivalents.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.carsharingapp.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharingapp.model.Car;
+import org.example.carsharingapp.model.Rental;
+import org.example.carsharingapp.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.jdbc.Sql;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class RentalRepositoryBatchInsertTest {
+
+    private static final int RENTALS = 250;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Should insert rentals in JDBC batches instead of one statement per row")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void saveAll_manyRentals_insertsInBatches() {
+        User user = entityManager.find(User.class, 1L);
+        Car car = entityManager.find(Car.class, 1L);
+        List<Rental> rentals = new ArrayList<>(RENTALS);
+        for (int i = 0; i < RENTALS; i++) {
+            Rental rental = new Rental();
+            rental.setRentalDate(LocalDateTime.of(2025, 9, 11, 10, 0, 0).plusDays(i));
+            rental.setReturnDate(LocalDateTime.of(2025, 9, 11, 18, 0, 0).plusDays(i));
+            rental.setUser(user);
+            rental.setCar(car);
+            rentals.add(rental);
+        }
+        Statistics statistics = entityManagerFactory
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        rentalRepository.saveAll(rentals);
+        entityManager.flush();
+
+        Assertions.assertEquals(RENTALS, statistics.getEntityInsertCount());
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+        Assertions.assertTrue(rentals.stream().allMatch(rental -> rental.getId() >= 1000));
+        Assertions.assertEquals(RENTALS, rentalRepository.count());
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.carsharingapp.repository;
 
-import org.example.carsharingapp.model.Car;
+import org.example.carsharingapp.dto.OverdueRentalDto;
+import org.example.carsharingapp.dto.RentalWindowDto;
 import org.example.carsharingapp.model.Rental;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -8,10 +9,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.jdbc.Sql;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -20,11 +22,8 @@ public class RentalRepositoryTest {
     @Autowired
     private RentalRepository rentalRepository;
 
-    @Autowired
-    private CarRepository carRepository;
-
     @Test
-    @DisplayName("Should return existing rental for specific car in database")
+    @DisplayName("Should return active rental window for specific car in database")
     @Sql(
             scripts = "classpath:database/clear.sql",
             executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
@@ -45,24 +44,15 @@ public class RentalRepositoryTest {
             scripts = "classpath:database/clear.sql",
             executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
     )
-    public void findActiveRentalsForCar_oneActiveRentals_returnListOfOneRental() {
-
-        Optional<Car> carById = carRepository.findById(1L);
-        Assertions.assertTrue(carById.isPresent());
+    public void findActiveRentalWindowsByCarId_oneActiveRental_returnListOfOneWindow() {
+        List<RentalWindowDto> windows = rentalRepository.findActiveRentalWindowsByCarId(1L);
 
-        Car car = carById.get();
-        LocalDateTime rentalDateTime = LocalDateTime.of(
-                2025, 9, 11, 10, 0, 0
-        );
-        LocalDateTime returnDateTime = LocalDateTime.of(
-                2025, 9, 15,18,0,0
-        );
-
-        List<Rental> activeRentalsForCar = rentalRepository
-                .findActiveRentalsForCar(car, returnDateTime, rentalDateTime);
-
-        Assertions.assertFalse(activeRentalsForCar.isEmpty());
-        Assertions.assertEquals(1, activeRentalsForCar.size());
+        Assertions.assertEquals(1, windows.size());
+        Assertions.assertEquals(1L, windows.get(0).rentalId());
+        Assertions.assertEquals(LocalDateTime.of(2025, 9, 11, 10, 0, 0),
+                windows.get(0).rentalDate());
+        Assertions.assertEquals(LocalDateTime.of(2025, 9, 15, 18, 0, 0),
+                windows.get(0).returnDate());
     }
 
     @Test
@@ -92,4 +82,72 @@ public class RentalRepositoryTest {
         Assertions.assertFalse(allByUserId.isEmpty());
         Assertions.assertEquals(1, allByUserId.size());
     }
+
+    @Test
+    @DisplayName("Should return overdue rental projection after given id")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add_default_rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void findOverdueRentalsAfter_oneOverdueRental_returnProjection() {
+        LocalDateTime now = LocalDateTime.of(2025, 9, 20, 9, 0, 0);
+
+        List<OverdueRentalDto> overdue = rentalRepository
+                .findOverdueRentalsAfter(now, 0L, Pageable.ofSize(10));
+
+        Assertions.assertEquals(1, overdue.size());
+        Assertions.assertEquals("one@test.com", overdue.get(0).email());
+        Assertions.assertEquals("test", overdue.get(0).brand());
+        Assertions.assertTrue(rentalRepository
+                .findOverdueRentalsAfter(now, 1L, Pageable.ofSize(10)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return rentals slice after given id without counting")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add_default_rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void findAllByUserIdAndIdGreaterThan_afterCursor_returnSlice() {
+        Slice<Rental> firstSlice = rentalRepository
+                .findAllByUserIdAndIdGreaterThanOrderByIdAsc(1L, 0L, Pageable.ofSize(10));
+
+        Assertions.assertEquals(1, firstSlice.getNumberOfElements());
+        Assertions.assertFalse(firstSlice.hasNext());
+        Assertions.assertTrue(rentalRepository
+                .findAllByUserIdAndIdGreaterThanOrderByIdAsc(1L, 1L, Pageable.ofSize(10))
+                .isEmpty());
+    }
 }
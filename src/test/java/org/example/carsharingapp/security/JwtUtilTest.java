@@ -0,0 +1,57 @@
+package org.example.carsharingapp.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+public class JwtUtilTest {
+
+    private static final String SECRET = "jabfajbfjabfjsdnjnsmkcdxksutrioerrtf6ydfctf76e845rtfgy785gi";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100);
+
+    @Test
+    @DisplayName("Should parse subject, roles and expiry in a single pass")
+    public void parseToken_validToken_returnClaims() {
+        String token = jwtUtil.generateToken("user@test.com", List.of("ROLE_CUSTOMER"));
+
+        JwtClaims claims = jwtUtil.parseToken(token);
+
+        Assertions.assertEquals("user@test.com", claims.subject());
+        Assertions.assertEquals(List.of("ROLE_CUSTOMER"), claims.roles());
+        Assertions.assertNotNull(claims.expiresAt());
+        Assertions.assertTrue(jwtUtil.isValidToken(token));
+    }
+
+    @Test
+    @DisplayName("Should return cached claims for repeated token")
+    public void parseToken_repeatedToken_returnSameClaims() {
+        String token = jwtUtil.generateToken("user@test.com", List.of("ROLE_CUSTOMER"));
+
+        JwtClaims first = jwtUtil.parseToken(token);
+        JwtClaims second = jwtUtil.parseToken(token);
+
+        Assertions.assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("Should reject token signed with a different key")
+    public void parseToken_foreignSignature_throwException() {
+        JwtUtil otherIssuer = new JwtUtil(SECRET.replace('a', 'b'), 60_000, 100);
+        String token = otherIssuer.generateToken("user@test.com", List.of("ROLE_CUSTOMER"));
+
+        Assertions.assertThrows(SignatureException.class, () -> jwtUtil.parseToken(token));
+    }
+
+    @Test
+    @DisplayName("Should reject expired token")
+    public void parseToken_expiredToken_throwException() {
+        JwtUtil shortLived = new JwtUtil(SECRET, -1_000, 100);
+        String token = shortLived.generateToken("user@test.com", List.of("ROLE_CUSTOMER"));
+
+        Assertions.assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseToken(token));
+    }
+}
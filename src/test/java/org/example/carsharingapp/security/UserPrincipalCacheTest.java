@@ -0,0 +1,56 @@
+package org.example.carsharingapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class UserPrincipalCacheTest {
+
+    private static final String EMAIL = "manager@test.com";
+
+    private final UserPrincipalCache principalCache =
+            new UserPrincipalCache(100, 300, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("Should not cache principal loaded before its roles were changed")
+    public void get_invalidatedDuringLoad_doesNotCacheStalePrincipal() throws Exception {
+        UserDetails manager = principal("ROLE_MANAGER");
+        UserDetails customer = principal("ROLE_CUSTOMER");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        CompletableFuture<UserDetails> staleLoad = CompletableFuture.supplyAsync(
+                () -> principalCache.get(EMAIL, email -> {
+                    loading.countDown();
+                    await(invalidated);
+                    return manager;
+                }));
+
+        Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+        principalCache.invalidate(EMAIL);
+        invalidated.countDown();
+
+        Assertions.assertSame(manager, staleLoad.get(5, TimeUnit.SECONDS));
+        Assertions.assertSame(customer, principalCache.get(EMAIL, email -> customer));
+        Assertions.assertSame(customer, principalCache.get(EMAIL, email -> manager));
+    }
+
+    private UserDetails principal(String role) {
+        return User.withUsername(EMAIL).password("password").authorities(role).build();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
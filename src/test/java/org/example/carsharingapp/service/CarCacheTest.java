@@ -0,0 +1,113 @@
+package org.example.carsharingapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.carsharingapp.model.Car;
+import org.example.carsharingapp.repository.CarRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+public class CarCacheTest {
+
+    @Mock
+    private CarRepository carRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CarCache carCache;
+
+    @BeforeEach
+    public void setUp() {
+        carCache = new CarCache(carRepository, 10, 60, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should load car once and serve repeated lookups from cache")
+    public void findById_repeatedLookups_loadOnce() {
+        Car car = new Car();
+        car.setId(1L);
+        Mockito.when(carRepository.findWithTypeById(1L)).thenReturn(Optional.of(car));
+
+        Assertions.assertSame(car, carCache.findById(1L).orElseThrow());
+        Assertions.assertEquals(1L, carCache.findById(1L).orElseThrow().getId());
+
+        Mockito.verify(carRepository, Mockito.times(1)).findWithTypeById(1L);
+        Assertions.assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", "cars")
+                .tag("result", "hit")
+                .functionCounter()
+                .count());
+    }
+
+    @Test
+    @DisplayName("Should hand out copies that do not change the cached car")
+    public void findById_modifiedResult_doesNotLeakIntoCache() {
+        Car car = new Car();
+        car.setId(1L);
+        car.setAvailableCars(3);
+        Mockito.when(carRepository.findWithTypeById(1L)).thenReturn(Optional.of(car));
+
+        carCache.findById(1L).orElseThrow().setAvailableCars(0);
+        Car first = carCache.findById(1L).orElseThrow();
+        first.setAvailableCars(0);
+        Car second = carCache.findById(1L).orElseThrow();
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(3, second.getAvailableCars());
+    }
+
+    @Test
+    @DisplayName("Should reload car after invalidation")
+    public void findById_afterInvalidate_reloadFromRepository() {
+        Car car = new Car();
+        car.setId(1L);
+        Mockito.when(carRepository.findWithTypeById(1L)).thenReturn(Optional.of(car));
+
+        carCache.findById(1L);
+        carCache.invalidate(1L);
+        carCache.findById(1L);
+
+        Mockito.verify(carRepository, Mockito.times(2)).findWithTypeById(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache car loaded before it was invalidated")
+    public void findById_invalidatedDuringLoad_doesNotCacheStaleCar() {
+        Car stale = new Car();
+        stale.setId(1L);
+        stale.setAvailableCars(3);
+        Car updated = new Car();
+        updated.setId(1L);
+        updated.setAvailableCars(1);
+        Mockito.when(carRepository.findWithTypeById(1L))
+                .thenAnswer(invocation -> {
+                    carCache.invalidate(1L);
+                    return Optional.of(stale);
+                })
+                .thenReturn(Optional.of(updated));
+
+        Assertions.assertEquals(3, carCache.findById(1L).orElseThrow().getAvailableCars());
+        Assertions.assertEquals(1, carCache.findById(1L).orElseThrow().getAvailableCars());
+        Assertions.assertEquals(1, carCache.findById(1L).orElseThrow().getAvailableCars());
+
+        Mockito.verify(carRepository, Mockito.times(2)).findWithTypeById(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache missing cars")
+    public void findById_missingCar_returnEmpty() {
+        Mockito.when(carRepository.findWithTypeById(2L)).thenReturn(Optional.empty());
+
+        Assertions.assertTrue(carCache.findById(2L).isEmpty());
+        Assertions.assertTrue(carCache.findById(2L).isEmpty());
+
+        Mockito.verify(carRepository, Mockito.times(2)).findWithTypeById(2L);
+    }
+}
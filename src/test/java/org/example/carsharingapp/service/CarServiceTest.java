@@ -1,15 +1,18 @@
 package org.example.carsharingapp.service;
 
+import org.example.carsharingapp.dto.CarAvailabilityDto;
 import org.example.carsharingapp.dto.CarRequestDto;
 import org.example.carsharingapp.dto.CarResponseDto;
 import org.example.carsharingapp.dto.CarResponseLiteDto;
+import org.example.carsharingapp.dto.FleetCarDto;
+import org.example.carsharingapp.exception.DuplicateCarException;
 import org.example.carsharingapp.exception.EntityNotFoundException;
+import org.example.carsharingapp.exception.InvalidRentalPeriodException;
 import org.example.carsharingapp.mapper.CarMapper;
 import org.example.carsharingapp.model.Car;
 import org.example.carsharingapp.model.CarType;
 import org.example.carsharingapp.model.TypeName;
 import org.example.carsharingapp.repository.CarRepository;
-import org.example.carsharingapp.repository.CarTypeRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,11 +21,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,7 +42,19 @@ public class CarServiceTest {
     private CarMapper carMapper;
 
     @Mock
-    private CarTypeRepository carTypeRepository;
+    private ReferenceDataRegistry referenceData;
+
+    @Mock
+    private CarCatalogVersion catalogVersion;
+
+    @Mock
+    private CarCache carCache;
+
+    @Mock
+    private FleetCatalog fleetCatalog;
+
+    @Mock
+    private RentalAvailabilityIndex availabilityIndex;
 
     @InjectMocks
     private CarServiceImpl carService;
@@ -77,12 +96,14 @@ public class CarServiceTest {
                 car.getBrand(),
                 car.getType(),
                 car.getDailyPrice()
-        )).thenReturn(Optional.empty());
-        Mockito.when(carRepository.save(car)).thenReturn(car);
+        )).thenReturn(Optional.of(car));
         Mockito.when(carMapper.toDto(car)).thenReturn(expected);
 
         CarResponseDto result = carService.addNewCar(request);
 
+        Mockito.verify(carRepository).upsertAll(List.of(car));
+        Mockito.verify(carCache).invalidate(1L);
+
         Assertions.assertNotNull(result);
         Assertions.assertEquals(expected.id(), result.id());
         Assertions.assertEquals(expected.model(), result.model());
@@ -92,15 +113,42 @@ public class CarServiceTest {
     }
 
     @Test
-    @DisplayName("Should return all cars with pagination")
-    public void getAllCars_validPageable_returnCarsResponseLiteDtoPage() {
-        Pageable pageable = Pageable.ofSize(2);
+    @DisplayName("Should retry car upsert after losing a lock")
+    public void addNewCar_deadlockOnFirstAttempt_retriesUpsert() {
+        CarRequestDto request = new CarRequestDto(
+                "test",
+                "test",
+                "SUV",
+                5,
+                BigDecimal.TEN
+        );
 
         Car car = new Car();
         car.setId(1L);
         car.setModel("test");
         car.setBrand("test");
-        car.setAvailableCars(5);
+        car.setDailyPrice(BigDecimal.TEN);
+
+        Mockito.when(carMapper.toModel(request)).thenReturn(car);
+        Mockito.doThrow(new CannotAcquireLockException("Deadlock found"))
+                .doNothing()
+                .when(carRepository).upsertAll(List.of(car));
+        Mockito.when(carRepository.findByModelAndBrandAndTypeAndDailyPrice(
+                car.getModel(),
+                car.getBrand(),
+                car.getType(),
+                car.getDailyPrice()
+        )).thenReturn(Optional.of(car));
+
+        carService.addNewCar(request);
+
+        Mockito.verify(carRepository, Mockito.times(2)).upsertAll(List.of(car));
+    }
+
+    @Test
+    @DisplayName("Should return all cars with pagination")
+    public void getAllCars_validPageable_returnCarsResponseLiteDtoPage() {
+        Pageable pageable = Pageable.ofSize(2);
 
         CarResponseLiteDto liteDto = new CarResponseLiteDto(
                 1L,
@@ -108,10 +156,9 @@ public class CarServiceTest {
                 "test"
         );
 
-        Page<Car> page = new PageImpl<>(List.of(car));
+        Page<CarResponseLiteDto> page = new PageImpl<>(List.of(liteDto));
 
-        Mockito.when(carRepository.findAll(pageable)).thenReturn(page);
-        Mockito.when(carMapper.toLiteDto(car)).thenReturn(liteDto);
+        Mockito.when(carRepository.findAllLite(pageable)).thenReturn(page);
 
         Page<CarResponseLiteDto> result = carService.getAllCars(pageable);
 
@@ -141,7 +188,7 @@ public class CarServiceTest {
                 BigDecimal.TEN
         );
 
-        Mockito.when(carRepository.findById(id)).thenReturn(Optional.of(car));
+        Mockito.when(carCache.findById(id)).thenReturn(Optional.of(car));
         Mockito.when(carMapper.toDto(car)).thenReturn(expected);
 
         CarResponseDto result = carService.getSingleCarInfo(id);
@@ -157,7 +204,7 @@ public class CarServiceTest {
     public void getSingleCarInfo_invalidId_throwEntityNotFoundException() {
         Long id = 99L;
 
-        Mockito.when(carRepository.findById(id)).thenReturn(Optional.empty());
+        Mockito.when(carCache.findById(id)).thenReturn(Optional.empty());
 
         Assertions.assertThrows(
                 EntityNotFoundException.class, () -> carService.getSingleCarInfo(id)
@@ -196,8 +243,7 @@ public class CarServiceTest {
         );
 
         Mockito.when(carRepository.findById(id)).thenReturn(Optional.of(car));
-        Mockito.when(carTypeRepository
-                        .findByTypeName(TypeName.SUV)).thenReturn(Optional.of(carType));
+        Mockito.when(referenceData.carType(TypeName.SUV)).thenReturn(carType);
         Mockito.when(carRepository.save(Mockito.any(Car.class))).thenReturn(car);
         Mockito.when(carMapper.toDto(car)).thenReturn(expected);
 
@@ -212,6 +258,33 @@ public class CarServiceTest {
         Assertions.assertEquals(expected.dailyPrice(), result.dailyPrice());
     }
 
+    @Test
+    @DisplayName("Should throw DuplicateCarException when update collides with another car")
+    public void updateCarById_existingKey_throwDuplicateCarException() {
+        Long id = 1L;
+
+        CarRequestDto request = new CarRequestDto(
+                "newModel",
+                "newBrand",
+                "SUV",
+                10,
+                BigDecimal.ONE
+        );
+
+        Car car = new Car();
+        car.setId(id);
+
+        Mockito.when(carRepository.findById(id)).thenReturn(Optional.of(car));
+        Mockito.when(referenceData.carType(TypeName.SUV)).thenReturn(new CarType());
+        Mockito.when(carRepository.save(car))
+                .thenThrow(new DataIntegrityViolationException("uq_cars_model_brand_type_price"));
+
+        Assertions.assertThrows(
+                DuplicateCarException.class, () -> carService.updateCarById(id, request)
+        );
+        Mockito.verifyNoInteractions(carCache, catalogVersion);
+    }
+
     @Test
     @DisplayName("Should throw EntityNotFoundException when updating car with invalid id")
     public void updateCarById_invalidId_throwEntityNotFoundException() {
@@ -249,8 +322,8 @@ public class CarServiceTest {
         car.setId(id);
 
         Mockito.when(carRepository.findById(id)).thenReturn(Optional.of(car));
-        Mockito.when(carTypeRepository
-                        .findByTypeName(TypeName.SUV)).thenReturn(Optional.empty());
+        Mockito.when(referenceData.carType(TypeName.SUV))
+                .thenThrow(new EntityNotFoundException("Car type SUV not found"));
 
         Assertions.assertThrows(
                 EntityNotFoundException.class, () -> carService.updateCarById(id, request)
@@ -264,6 +337,39 @@ public class CarServiceTest {
         carService.deleteCarById(id);
 
         Mockito.verify(carRepository, Mockito.times(1)).deleteById(id);
+        Mockito.verify(carCache).invalidate(id);
+        Mockito.verify(catalogVersion).bump();
     }
 
+    @Test
+    @DisplayName("Should return cars of requested type with units left in period")
+    public void getAvailableCars_validPeriod_returnCarsWithRemainingUnits() {
+        LocalDateTime start = LocalDateTime.of(2025, 9, 11, 10, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 9, 15, 18, 0);
+
+        Mockito.when(fleetCatalog.cars()).thenReturn(List.of(
+                new FleetCarDto(1L, "X5", "BMW", TypeName.SUV, 3, BigDecimal.TEN),
+                new FleetCarDto(2L, "Q7", "Audi", TypeName.SUV, 1, BigDecimal.TEN),
+                new FleetCarDto(3L, "A4", "Audi", TypeName.SEDAN, 2, BigDecimal.ONE)
+        ));
+        Mockito.when(availabilityIndex.countActiveRentalsByCar(start, end))
+                .thenReturn(Map.of(1L, 1, 2L, 1));
+
+        Page<CarAvailabilityDto> result = carService.getAvailableCars(
+                start, end, TypeName.SUV, Pageable.ofSize(10));
+
+        Assertions.assertEquals(1, result.getTotalElements());
+        Assertions.assertEquals(1L, result.getContent().get(0).id());
+        Assertions.assertEquals(2, result.getContent().get(0).availableCars());
+    }
+
+    @Test
+    @DisplayName("Should reject availability search when return date is not after rental date")
+    public void getAvailableCars_invalidPeriod_throwInvalidRentalPeriodException() {
+        LocalDateTime start = LocalDateTime.of(2025, 9, 11, 10, 0);
+
+        Assertions.assertThrows(InvalidRentalPeriodException.class,
+                () -> carService.getAvailableCars(start, start, null, Pageable.ofSize(10)));
+        Mockito.verifyNoInteractions(fleetCatalog, availabilityIndex);
+    }
 }
@@ -0,0 +1,108 @@
+package org.example.carsharingapp.service;
+
+import org.example.carsharingapp.dto.CarRequestDto;
+import org.example.carsharingapp.dto.CarResponseDto;
+import org.example.carsharingapp.dto.FleetCarDto;
+import org.example.carsharingapp.repository.CarRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+public class CarServiceUpsertConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 25;
+
+    @MockitoBean
+    private NotificationService telegramService;
+
+    @MockitoBean
+    private StripePaymentService stripePaymentService;
+
+    @MockitoBean
+    private OverdueRentalChecker overdueRentalChecker;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Test
+    @DisplayName("Should keep one row with exact count when a car is added from many threads")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void addNewCar_concurrentRequestsForOneCar_countsStayExact() throws Exception {
+        CarRequestDto request = new CarRequestDto(
+                "Golf", "VW", "HATCHBACK", 2, new BigDecimal("9.99")
+        );
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                    carService.addNewCar(request);
+                }
+                return null;
+            }));
+        }
+
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<FleetCarDto> fleet = carRepository.findFleet();
+        Assertions.assertEquals(1, fleet.size());
+        Assertions.assertEquals(THREADS * REQUESTS_PER_THREAD * 2, fleet.get(0).availableCars());
+    }
+
+    @Test
+    @DisplayName("Should restore a deleted car with the new count when it is added again")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void addNewCar_softDeletedMatch_restoresCar() {
+        carService.deleteCarById(1L);
+
+        CarResponseDto result = carService.addNewCar(
+                new CarRequestDto("test", "test", "SEDAN", 4, BigDecimal.TEN)
+        );
+
+        Assertions.assertEquals(1L, result.id());
+        Assertions.assertEquals(4, result.availableCars());
+        Assertions.assertEquals(2, carRepository.findFleet().size());
+    }
+}
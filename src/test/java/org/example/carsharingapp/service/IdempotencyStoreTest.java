@@ -0,0 +1,131 @@
+package org.example.carsharingapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.carsharingapp.exception.IdempotencyKeyReusedException;
+import org.example.carsharingapp.exception.IdempotentRequestInProgressException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(
+            100, 60, 1000, new ObjectMapper(), new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("Should return original response for repeated key without executing again")
+    public void execute_repeatedKey_executesOnce() {
+        AtomicInteger executions = new AtomicInteger();
+
+        Integer first = store.execute("scope", "key", "request", executions::incrementAndGet);
+        Integer retry = store.execute("scope", "key", "request", executions::incrementAndGet);
+        Integer otherScope = store.execute("other", "key", "request", executions::incrementAndGet);
+
+        Assertions.assertEquals(1, first);
+        Assertions.assertEquals(1, retry);
+        Assertions.assertEquals(2, otherScope);
+    }
+
+    @Test
+    @DisplayName("Should execute every request without idempotency key")
+    public void execute_withoutKey_executesEveryTime() {
+        AtomicInteger executions = new AtomicInteger();
+
+        store.execute("scope", null, "request", executions::incrementAndGet);
+        store.execute("scope", " ", "request", executions::incrementAndGet);
+
+        Assertions.assertEquals(2, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should let concurrent duplicate wait for first execution")
+    public void execute_duplicateInFlight_waitsForFirstResult() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(
+                () -> store.execute("scope", "key", "request", () -> {
+                    started.countDown();
+                    await(release);
+                    return executions.incrementAndGet();
+                }));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> duplicate = CompletableFuture.supplyAsync(
+                () -> store.execute("scope", "key", "request", executions::incrementAndGet));
+        Thread.sleep(100);
+        Assertions.assertFalse(duplicate.isDone());
+
+        release.countDown();
+
+        Assertions.assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, duplicate.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("Should execute again after failed execution")
+    public void execute_afterFailure_executesAgain() {
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> store.execute("scope", "key", "request", () -> {
+                    throw new IllegalStateException("failed");
+                }));
+
+        Assertions.assertEquals("ok", store.execute("scope", "key", "request", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("Should reject repeated key sent with a different request")
+    public void execute_sameKeyDifferentRequest_throwsKeyReused() {
+        store.execute("scope", "key", "request", () -> "ok");
+
+        Assertions.assertThrows(IdempotencyKeyReusedException.class,
+                () -> store.execute("scope", "key", "other request", () -> "other"));
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for an in-flight duplicate after the timeout")
+    public void execute_duplicateInFlightTooLong_throwsInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(
+                () -> store.execute("scope", "key", "request", () -> {
+                    started.countDown();
+                    await(release);
+                    return "ok";
+                }));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Assertions.assertThrows(IdempotentRequestInProgressException.class,
+                () -> store.execute("scope", "key", "request", () -> "duplicate"));
+
+        release.countDown();
+        Assertions.assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should execute again after execution failed with an error")
+    public void execute_afterError_executesAgain() {
+        Assertions.assertThrows(AssertionError.class,
+                () -> store.execute("scope", "key", "request", () -> {
+                    throw new AssertionError("failed");
+                }));
+
+        Assertions.assertEquals("ok", store.execute("scope", "key", "request", () -> "ok"));
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
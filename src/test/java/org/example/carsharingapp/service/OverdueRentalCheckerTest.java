@@ -0,0 +1,87 @@
+package org.example.carsharingapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.carsharingapp.dto.OverdueRentalDto;
+import org.example.carsharingapp.repository.RentalRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class OverdueRentalCheckerTest {
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OverdueRentalChecker overdueRentalChecker;
+
+    @BeforeEach
+    public void setUp() {
+        overdueRentalChecker = new OverdueRentalChecker(
+                rentalRepository, notificationService, meterRegistry, 2
+        );
+    }
+
+    @Test
+    @DisplayName("Should page through overdue rentals and send one digest")
+    public void checkOverdueRental_severalPages_sendSingleDigest() {
+        LocalDateTime returnDate = LocalDateTime.now().minusDays(1);
+        OverdueRentalDto first = new OverdueRentalDto(
+                1L, "first@test.com", "Toyota", "Corolla", returnDate);
+        OverdueRentalDto second = new OverdueRentalDto(
+                2L, "second@test.com", "Honda", "Civic", returnDate);
+        OverdueRentalDto third = new OverdueRentalDto(
+                5L, "third@test.com", "Mazda", "CX-5", returnDate);
+
+        Mockito.when(rentalRepository.findOverdueRentalsAfter(
+                        Mockito.any(LocalDateTime.class),
+                        Mockito.eq(0L),
+                        Mockito.any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        Mockito.when(rentalRepository.findOverdueRentalsAfter(
+                        Mockito.any(LocalDateTime.class),
+                        Mockito.eq(2L),
+                        Mockito.any(Pageable.class)))
+                .thenReturn(List.of(third));
+
+        overdueRentalChecker.checkOverdueRental();
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(notificationService).sendNotification(message.capture());
+        Assertions.assertTrue(message.getValue().startsWith("Rentals overdue: 3"));
+        Assertions.assertTrue(message.getValue().contains("third@test.com"));
+        Assertions.assertEquals(3.0,
+                meterRegistry.get("rental.overdue.rentals").counter().count());
+        Assertions.assertEquals(1,
+                meterRegistry.get("rental.overdue.check").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should send no-overdue message when nothing is overdue")
+    public void checkOverdueRental_noneOverdue_sendNoOverdueMessage() {
+        Mockito.when(rentalRepository.findOverdueRentalsAfter(
+                        Mockito.any(LocalDateTime.class),
+                        Mockito.eq(0L),
+                        Mockito.any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        overdueRentalChecker.checkOverdueRental();
+
+        Mockito.verify(notificationService).sendNotification("No rentals overdue today!");
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.carsharingapp.service;
+
+import org.example.carsharingapp.exception.InvalidCursorException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PageCursorsTest {
+
+    @Test
+    @DisplayName("Should decode encoded cursor to the same id")
+    public void decode_encodedCursor_returnSameId() {
+        Assertions.assertEquals(42L, PageCursors.decode(PageCursors.encode(42L)));
+    }
+
+    @Test
+    @DisplayName("Should start from the beginning without cursor")
+    public void decode_blankCursor_returnZero() {
+        Assertions.assertEquals(0L, PageCursors.decode(null));
+        Assertions.assertEquals(0L, PageCursors.decode(""));
+    }
+
+    @Test
+    @DisplayName("Should reject tampered cursor")
+    public void decode_tamperedCursor_throwInvalidCursorException() {
+        Assertions.assertThrows(InvalidCursorException.class,
+                () -> PageCursors.decode("not a cursor"));
+        Assertions.assertThrows(InvalidCursorException.class,
+                () -> PageCursors.decode("NDI"));
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.carsharingapp.service;
+
+import com.stripe.Stripe;
+import com.sun.net.httpserver.HttpServer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.carsharingapp.dto.PaymentUrlResponseDto;
+import org.example.carsharingapp.model.User;
+import org.example.carsharingapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+@SpringBootTest
+public class PaymentServiceStripeStubTest {
+
+    private static final int THREADS = 20;
+
+    private static final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+    private static final List<Integer> activeConnections = new CopyOnWriteArrayList<>();
+
+    private static HttpServer stripeStub;
+    private static HikariDataSource pool;
+
+    @MockitoBean
+    private NotificationService telegramService;
+
+    @MockitoBean
+    private OverdueRentalChecker overdueRentalChecker;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void stripeStubProperties(DynamicPropertyRegistry registry) throws IOException {
+        stripeStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stripeStub.createContext("/v1/checkout/sessions", exchange -> {
+            idempotencyKeys.add(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+            activeConnections.add(pool.getHikariPoolMXBean().getActiveConnections());
+            byte[] body = """
+                    {"id": "cs_test_1", "object": "checkout.session",
+                     "url": "https://checkout.test/cs_test_1", "expires_at": %d}
+                    """.formatted(Instant.now().plus(1, ChronoUnit.HOURS).getEpochSecond())
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stripeStub.start();
+        registry.add("stripe.api-base",
+                () -> "http://localhost:" + stripeStub.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopStripeStub() {
+        stripeStub.stop(0);
+    }
+
+    @Test
+    @WithUserDetails("one@test.com")
+    @DisplayName("Should call Stripe once without holding a connection and reuse session on retry")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-users-roles-relations.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-returned-rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void createPaymentSessionByRentalId_retried_createsOneSession() throws Exception {
+        pool = dataSource.unwrap(HikariDataSource.class);
+        idempotencyKeys.clear();
+        activeConnections.clear();
+
+        PaymentUrlResponseDto first = paymentService.createPaymentSessionByRentalId(1L);
+        PaymentUrlResponseDto retry = paymentService.createPaymentSessionByRentalId(1L);
+
+        Assertions.assertEquals("https://checkout.test/cs_test_1", first.stripeUrl());
+        Assertions.assertEquals(first, retry);
+        Assertions.assertEquals(1, idempotencyKeys.size());
+        Assertions.assertNotNull(idempotencyKeys.get(0));
+        Assertions.assertEquals(List.of(0), activeConnections);
+        Assertions.assertNull(Stripe.apiKey);
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE rental_id = 1", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should store one pending payment when rental is paid from many threads at once")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-users-roles-relations.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-returned-rental.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void createPaymentSessionByRentalId_concurrentRequests_storesOnePendingPayment()
+            throws Exception {
+        pool = dataSource.unwrap(HikariDataSource.class);
+        User user = userRepository.findByEmail("one@test.com").orElseThrow();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<PaymentUrlResponseDto>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(
+                                user, null, user.getAuthorities()));
+                startSignal.await();
+                try {
+                    return paymentService.createPaymentSessionByRentalId(1L);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+
+        startSignal.countDown();
+        for (Future<PaymentUrlResponseDto> future : futures) {
+            Assertions.assertEquals("https://checkout.test/cs_test_1",
+                    future.get(30, TimeUnit.SECONDS).stripeUrl());
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("""
+                SELECT COUNT(*)
+                FROM payments p
+                JOIN payment_status s ON s.id = p.status_id
+                WHERE p.rental_id = 1 AND s.payment_status_name = 'PENDING'
+                """, Integer.class));
+    }
+}
@@ -2,6 +2,7 @@ package org.example.carsharingapp.service;
 
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import org.example.carsharingapp.dto.CursorPageDto;
 import org.example.carsharingapp.dto.PaymentResponseDto;
 import org.example.carsharingapp.dto.PaymentUrlResponseDto;
 import org.example.carsharingapp.exception.AccessDeniedException;
@@ -18,10 +19,7 @@ import org.example.carsharingapp.model.Role;
 import org.example.carsharingapp.model.RoleName;
 import org.example.carsharingapp.model.User;
 import org.example.carsharingapp.repository.PaymentRepository;
-import org.example.carsharingapp.repository.PaymentStatusRepository;
-import org.example.carsharingapp.repository.PaymentTypeRepository;
 import org.example.carsharingapp.repository.RentalRepository;
-import org.example.carsharingapp.repository.RoleRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -33,8 +31,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -50,22 +52,22 @@ public class PaymentServiceTest {
     private UserService userService;
 
     @Mock
-    private RoleRepository roleRepository;
+    private ReferenceDataRegistry referenceData;
 
     @Mock
-    private PaymentTypeRepository paymentTypeRepository;
+    private StripePaymentService stripePaymentService;
 
     @Mock
-    private PaymentStatusRepository paymentStatusRepository;
+    private PaymentRepository paymentRepository;
 
     @Mock
-    private StripePaymentService stripePaymentService;
+    private PaymentMapper paymentMapper;
 
     @Mock
-    private PaymentRepository paymentRepository;
+    private CarCache carCache;
 
     @Mock
-    private PaymentMapper paymentMapper;
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private PaymentServiceImpl paymentService;
@@ -79,10 +81,8 @@ public class PaymentServiceTest {
         User user = new User();
         user.setId(1L);
 
-        Role managerRole = new Role();
-        managerRole.setName(RoleName.ROLE_MANAGER);
-
         Car car = new Car();
+        car.setId(1L);
         car.setDailyPrice(BigDecimal.TEN);
         car.setBrand("Toyota");
         car.setModel("Corolla");
@@ -100,29 +100,39 @@ public class PaymentServiceTest {
         session.setUrl("https://stripe.com/session");
 
         PaymentStatus pendingStatus = new PaymentStatus();
+        pendingStatus.setId(1L);
         pendingStatus.setPaymentStatusName(PaymentStatusName.PENDING);
 
         PaymentType paymentTypeFine = new PaymentType();
         paymentTypeFine.setPaymentTypeName(PaymentTypeName.FINE);
 
+        runTransactionsInline();
+        stubPaidStatus();
         Mockito.when(rentalRepository
                 .findById(rentalId))
                 .thenReturn(Optional.of(rental));
         Mockito.when(userService
                 .getCurrentUser())
                 .thenReturn(user);
-        Mockito.when(roleRepository
-                .findByName(RoleName.ROLE_MANAGER))
-                .thenReturn(Optional.of(managerRole));
+        Mockito.when(carCache
+                .findById(1L))
+                .thenReturn(Optional.of(car));
+        Mockito.when(paymentRepository
+                .findFirstByRentalIdAndStatusIdOrderByIdDesc(rentalId, 1L))
+                .thenReturn(Optional.empty());
         Mockito.when(stripePaymentService
-                .createCheckoutSession(Mockito.anyLong(), Mockito.anyLong()))
+                .createCheckoutSession(
+                        Mockito.eq(rentalId), Mockito.anyLong(), Mockito.anyString()))
                 .thenReturn(session);
-        Mockito.when(paymentStatusRepository
-                .findByPaymentStatusName(PaymentStatusName.PENDING))
-                .thenReturn(Optional.of(pendingStatus));
-        Mockito.when(paymentTypeRepository
-                .findByPaymentTypeName(PaymentTypeName.FINE))
-                .thenReturn(Optional.of(paymentTypeFine));
+        Mockito.when(rentalRepository
+                .findForUpdateById(rentalId))
+                .thenReturn(Optional.of(rental));
+        Mockito.when(referenceData
+                .paymentStatus(PaymentStatusName.PENDING))
+                .thenReturn(pendingStatus);
+        Mockito.when(referenceData
+                .paymentType(PaymentTypeName.FINE))
+                .thenReturn(paymentTypeFine);
         Mockito.when(paymentRepository
                 .save(Mockito.any(Payment.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -133,6 +143,129 @@ public class PaymentServiceTest {
         Assertions.assertEquals(session.getUrl(), result.stripeUrl());
     }
 
+    @Test
+    @DisplayName("Should reuse pending payment session without calling Stripe again")
+    public void createPaymentSessionByRentalId_pendingPayment_returnExistingUrl() {
+        User user = new User();
+        user.setId(1L);
+
+        Rental rental = new Rental();
+        rental.setId(1L);
+        rental.setUser(user);
+        rental.setActualReturnDate(LocalDateTime.now());
+
+        PaymentStatus pendingStatus = new PaymentStatus();
+        pendingStatus.setId(1L);
+
+        Payment pending = new Payment();
+        pending.setSessionUrl("https://stripe.com/pending");
+        pending.setSessionExpiresAt(LocalDateTime.now().plusHours(1));
+
+        runTransactionsInline();
+        stubPaidStatus();
+        Mockito.when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        Mockito.when(userService.getCurrentUser()).thenReturn(user);
+        Mockito.when(referenceData.paymentStatus(PaymentStatusName.PENDING))
+                .thenReturn(pendingStatus);
+        Mockito.when(paymentRepository.findFirstByRentalIdAndStatusIdOrderByIdDesc(1L, 1L))
+                .thenReturn(Optional.of(pending));
+
+        PaymentUrlResponseDto result = paymentService.createPaymentSessionByRentalId(1L);
+
+        Assertions.assertEquals("https://stripe.com/pending", result.stripeUrl());
+        Mockito.verifyNoInteractions(stripePaymentService);
+        Mockito.verify(paymentRepository, Mockito.never()).save(Mockito.any());
+    }
+
+
+    @Test
+    @DisplayName("Should replace pending payment whose Stripe session has expired")
+    public void createPaymentSessionByRentalId_expiredSession_createsNewSession()
+            throws StripeException {
+        User user = new User();
+        user.setId(1L);
+
+        Car car = new Car();
+        car.setId(1L);
+        car.setDailyPrice(BigDecimal.TEN);
+
+        Rental rental = new Rental();
+        rental.setId(1L);
+        rental.setUser(user);
+        rental.setCar(car);
+        rental.setRentalDate(LocalDateTime.now().minusDays(2));
+        rental.setReturnDate(LocalDateTime.now().plusDays(1));
+        rental.setActualReturnDate(LocalDateTime.now());
+
+        PaymentStatus pendingStatus = new PaymentStatus();
+        pendingStatus.setId(1L);
+        pendingStatus.setPaymentStatusName(PaymentStatusName.PENDING);
+
+        PaymentStatus expiredStatus = new PaymentStatus();
+        expiredStatus.setId(3L);
+        expiredStatus.setPaymentStatusName(PaymentStatusName.EXPIRED);
+
+        Payment stale = new Payment();
+        stale.setId(7L);
+        stale.setStatus(pendingStatus);
+        stale.setSessionUrl("https://stripe.com/stale");
+        stale.setSessionExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        Session session = new Session();
+        session.setId("sess_new");
+        session.setUrl("https://stripe.com/new");
+        session.setExpiresAt(LocalDateTime.now().plusDays(1)
+                .atZone(ZoneId.systemDefault()).toEpochSecond());
+
+        runTransactionsInline();
+        stubPaidStatus();
+        Mockito.when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        Mockito.when(userService.getCurrentUser()).thenReturn(user);
+        Mockito.when(carCache.findById(1L)).thenReturn(Optional.of(car));
+        Mockito.when(referenceData.paymentStatus(PaymentStatusName.PENDING))
+                .thenReturn(pendingStatus);
+        Mockito.when(referenceData.paymentStatus(PaymentStatusName.EXPIRED))
+                .thenReturn(expiredStatus);
+        Mockito.when(referenceData.paymentType(PaymentTypeName.PAYMENT))
+                .thenReturn(new PaymentType());
+        Mockito.when(paymentRepository.findFirstByRentalIdAndStatusIdOrderByIdDesc(1L, 1L))
+                .thenReturn(Optional.of(stale));
+        Mockito.when(stripePaymentService.createCheckoutSession(
+                        Mockito.eq(1L), Mockito.anyLong(), Mockito.endsWith("-after-7")))
+                .thenReturn(session);
+        Mockito.when(rentalRepository.findForUpdateById(1L)).thenReturn(Optional.of(rental));
+        Mockito.when(paymentRepository.save(Mockito.any(Payment.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        PaymentUrlResponseDto result = paymentService.createPaymentSessionByRentalId(1L);
+
+        Assertions.assertEquals("https://stripe.com/new", result.stripeUrl());
+        Assertions.assertEquals(PaymentStatusName.EXPIRED,
+                stale.getStatus().getPaymentStatusName());
+    }
+
+    @Test
+    @DisplayName("Should throw PaymentException when rental is already paid")
+    public void createPaymentSessionByRentalId_paidRental_throwPaymentException() {
+        User user = new User();
+        user.setId(1L);
+
+        Rental rental = new Rental();
+        rental.setId(1L);
+        rental.setUser(user);
+        rental.setActualReturnDate(LocalDateTime.now());
+
+        runTransactionsInline();
+        stubPaidStatus();
+        Mockito.when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        Mockito.when(userService.getCurrentUser()).thenReturn(user);
+        Mockito.when(paymentRepository.existsByRentalIdAndStatusId(1L, 2L)).thenReturn(true);
+
+        Assertions.assertThrows(PaymentException.class,
+                () -> paymentService.createPaymentSessionByRentalId(1L));
+        Mockito.verifyNoInteractions(stripePaymentService);
+        Mockito.verify(paymentRepository, Mockito.never()).save(Mockito.any());
+    }
 
     @Test
     @DisplayName("Should throw PaymentException when rental not returned")
@@ -141,15 +274,13 @@ public class PaymentServiceTest {
         rental.setActualReturnDate(null);
         rental.setUser(new User());
 
+        runTransactionsInline();
         Mockito.when(rentalRepository
                 .findById(1L))
                 .thenReturn(Optional.of(rental));
         Mockito.when(userService
                 .getCurrentUser())
                 .thenReturn(new User());
-        Mockito.when(roleRepository
-                .findByName(RoleName.ROLE_MANAGER))
-                .thenReturn(Optional.of(new Role()));
 
         Assertions.assertThrows(PaymentException.class,
                 () -> paymentService.createPaymentSessionByRentalId(1L));
@@ -170,15 +301,13 @@ public class PaymentServiceTest {
         rental.setUser(rentalOwner);
         rental.setActualReturnDate(LocalDateTime.now());
 
+        runTransactionsInline();
         Mockito.when(rentalRepository
                 .findById(1L))
                 .thenReturn(Optional.of(rental));
         Mockito.when(userService
                 .getCurrentUser())
                 .thenReturn(currentUser);
-        Mockito.when(roleRepository
-                .findByName(RoleName.ROLE_MANAGER))
-                .thenReturn(Optional.of(new Role()));
 
         Assertions.assertThrows(AccessDeniedException.class,
                 () -> paymentService.createPaymentSessionByRentalId(1L));
@@ -194,6 +323,7 @@ public class PaymentServiceTest {
         user.setRoles(Set.of());
 
         Car car = new Car();
+        car.setId(1L);
         car.setDailyPrice(BigDecimal.TEN);
         car.setBrand("Toyota");
         car.setModel("Corolla");
@@ -206,18 +336,29 @@ public class PaymentServiceTest {
         rental.setReturnDate(LocalDateTime.now().minusDays(1));
         rental.setActualReturnDate(LocalDateTime.now());
 
+        PaymentStatus pendingStatus = new PaymentStatus();
+        pendingStatus.setId(1L);
+
+        runTransactionsInline();
+        stubPaidStatus();
         Mockito.when(rentalRepository
                 .findById(rentalId))
                 .thenReturn(Optional.of(rental));
         Mockito.when(userService
                 .getCurrentUser())
                 .thenReturn(user);
-        Mockito.when(roleRepository
-                .findByName(RoleName.ROLE_MANAGER))
-                .thenReturn(Optional.of(new Role()));
+        Mockito.when(referenceData
+                .paymentStatus(PaymentStatusName.PENDING))
+                .thenReturn(pendingStatus);
+        Mockito.when(paymentRepository
+                .findFirstByRentalIdAndStatusIdOrderByIdDesc(rentalId, 1L))
+                .thenReturn(Optional.empty());
+        Mockito.when(carCache
+                .findById(1L))
+                .thenReturn(Optional.of(car));
 
         Mockito.when(stripePaymentService
-                .createCheckoutSession(Mockito.anyLong(), Mockito.anyLong()))
+                .createCheckoutSession(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyString()))
                 .thenThrow(new PaymentException("Exception"));
 
         Assertions.assertThrows(PaymentException.class,
@@ -237,9 +378,9 @@ public class PaymentServiceTest {
         Mockito.when(paymentRepository
                 .findById(1L))
                 .thenReturn(Optional.of(payment));
-        Mockito.when(paymentStatusRepository
-                .findByPaymentStatusName(PaymentStatusName.PAID))
-                .thenReturn(Optional.of(paidStatus));
+        Mockito.when(referenceData
+                .paymentStatus(PaymentStatusName.PAID))
+                .thenReturn(paidStatus);
         Mockito.when(paymentRepository
                 .save(Mockito.any(Payment.class)))
                 .thenReturn(payment);
@@ -278,9 +419,6 @@ public class PaymentServiceTest {
         Mockito.when(userService
                 .getCurrentUser())
                 .thenReturn(manager);
-        Mockito.when(roleRepository
-                .findByName(RoleName.ROLE_MANAGER))
-                .thenReturn(Optional.of(managerRole));
         Mockito.when(paymentRepository
                 .findAll(Pageable.ofSize(5)))
                 .thenReturn(page);
@@ -315,9 +453,6 @@ public class PaymentServiceTest {
         Mockito.when(userService
                 .getCurrentUser())
                 .thenReturn(customer);
-        Mockito.when(roleRepository
-                .findByName(RoleName.ROLE_MANAGER))
-                .thenReturn(Optional.of(new Role()));
         Mockito.when(paymentRepository
                 .findAllByUserId(1L, Pageable.ofSize(5)))
                 .thenReturn(page);
@@ -341,4 +476,42 @@ public class PaymentServiceTest {
         Assertions.assertEquals(1, result.getTotalElements());
     }
 
+    @Test
+    @DisplayName("Should return last payments slice for customer without next cursor")
+    public void getPayments_customerWithCursor_returnLastSlice() {
+        User customer = new User();
+        customer.setId(1L);
+        customer.setRoles(Collections.emptySet());
+
+        Payment payment = new Payment();
+        payment.setId(4L);
+        PaymentResponseDto dto = new PaymentResponseDto(
+                4L, "PENDING", "PAYMENT", "Toyota", "Corolla", "url", "sess", BigDecimal.TEN
+        );
+
+        Mockito.when(userService.getCurrentUser()).thenReturn(customer);
+        Mockito.when(paymentRepository.findAllByUserIdAfter(1L, 0L, Pageable.ofSize(5)))
+                .thenReturn(new SliceImpl<>(List.of(payment), Pageable.ofSize(5), false));
+        Mockito.when(paymentMapper.toDto(payment)).thenReturn(dto);
+
+        CursorPageDto<PaymentResponseDto> result = paymentService.getPayments(2L, null, 5);
+
+        Assertions.assertEquals(List.of(dto), result.content());
+        Assertions.assertFalse(result.hasNext());
+        Assertions.assertNull(result.nextCursor());
+    }
+
+    private void runTransactionsInline() {
+        Mockito.when(transactionTemplate.execute(Mockito.any()))
+                .thenAnswer(invocation -> invocation
+                        .<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+    }
+
+    private void stubPaidStatus() {
+        PaymentStatus paidStatus = new PaymentStatus();
+        paidStatus.setId(2L);
+        paidStatus.setPaymentStatusName(PaymentStatusName.PAID);
+        Mockito.when(referenceData.paymentStatus(PaymentStatusName.PAID)).thenReturn(paidStatus);
+    }
 }
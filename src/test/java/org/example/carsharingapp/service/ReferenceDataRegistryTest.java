@@ -0,0 +1,69 @@
+package org.example.carsharingapp.service;
+
+import org.example.carsharingapp.exception.EntityNotFoundException;
+import org.example.carsharingapp.model.PaymentStatus;
+import org.example.carsharingapp.model.PaymentStatusName;
+import org.example.carsharingapp.model.Role;
+import org.example.carsharingapp.model.RoleName;
+import org.example.carsharingapp.repository.CarTypeRepository;
+import org.example.carsharingapp.repository.PaymentStatusRepository;
+import org.example.carsharingapp.repository.PaymentTypeRepository;
+import org.example.carsharingapp.repository.RoleRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class ReferenceDataRegistryTest {
+
+    @Mock
+    private PaymentStatusRepository paymentStatusRepository;
+
+    @Mock
+    private PaymentTypeRepository paymentTypeRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private CarTypeRepository carTypeRepository;
+
+    @InjectMocks
+    private ReferenceDataRegistry referenceData;
+
+    @Test
+    @DisplayName("Should resolve loaded rows without further queries")
+    public void paymentStatus_afterReload_returnLoadedRow() {
+        PaymentStatus pending = new PaymentStatus();
+        pending.setId(1L);
+        pending.setPaymentStatusName(PaymentStatusName.PENDING);
+
+        Mockito.when(paymentStatusRepository.findAll()).thenReturn(List.of(pending));
+        referenceData.reload();
+
+        Assertions.assertSame(pending, referenceData.paymentStatus(PaymentStatusName.PENDING));
+        Assertions.assertSame(pending, referenceData.paymentStatus(PaymentStatusName.PENDING));
+        Mockito.verify(paymentStatusRepository, Mockito.times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should throw EntityNotFoundException for missing row")
+    public void role_missingRow_throwEntityNotFoundException() {
+        Role customer = new Role();
+        customer.setId(2L);
+        customer.setName(RoleName.ROLE_CUSTOMER);
+
+        Mockito.when(roleRepository.findAll()).thenReturn(List.of(customer));
+        referenceData.reload();
+
+        Assertions.assertSame(customer, referenceData.role(RoleName.ROLE_CUSTOMER));
+        Assertions.assertThrows(EntityNotFoundException.class,
+                () -> referenceData.role(RoleName.ROLE_MANAGER));
+    }
+}
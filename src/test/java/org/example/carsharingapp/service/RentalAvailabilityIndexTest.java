@@ -0,0 +1,133 @@
+package org.example.carsharingapp.service;
+
+import org.example.carsharingapp.dto.RentalWindowDto;
+import org.example.carsharingapp.repository.RentalRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@ExtendWith(MockitoExtension.class)
+public class RentalAvailabilityIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 9, 11, 10, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 9, 15, 18, 0);
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Spy
+    private CarBookingLocks carBookingLocks = new CarBookingLocks(16);
+
+    @InjectMocks
+    private RentalAvailabilityIndex availabilityIndex;
+
+    @Test
+    @DisplayName("Should count rentals overlapping requested period after warm up")
+    public void countActiveRentals_warmedUp_returnOverlappingCount() {
+        Mockito.when(rentalRepository.findActiveRentalWindows()).thenReturn(List.of(
+                new RentalWindowDto(1L, 1L, START, END),
+                new RentalWindowDto(2L, 1L, END, END.plusDays(2)),
+                new RentalWindowDto(3L, 2L, START, END)
+        ));
+
+        availabilityIndex.warmUp();
+
+        Assertions.assertEquals(1, availabilityIndex.countActiveRentals(
+                1L, START.plusDays(1), START.plusDays(2)));
+        Assertions.assertEquals(2, availabilityIndex.countActiveRentals(
+                1L, START, END.plusDays(1)));
+        Assertions.assertEquals(0, availabilityIndex.countActiveRentals(
+                1L, END.plusDays(2), END.plusDays(3)));
+        Assertions.assertEquals(0, availabilityIndex.countActiveRentals(
+                3L, START, END));
+    }
+
+    @Test
+    @DisplayName("Should count overlapping rentals for whole fleet in one pass")
+    public void countActiveRentalsByCar_overlappingRentals_returnCountsPerCar() {
+        availabilityIndex.add(1L, 1L, START, END);
+        availabilityIndex.add(1L, 2L, START.plusDays(1), END);
+        availabilityIndex.add(2L, 3L, END, END.plusDays(2));
+
+        Assertions.assertEquals(Map.of(1L, 2),
+                availabilityIndex.countActiveRentalsByCar(START.plusDays(2), END));
+        Assertions.assertEquals(Map.of(1L, 2, 2L, 1),
+                availabilityIndex.countActiveRentalsByCar(START, END.plusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Should stop counting rental after it is removed")
+    public void remove_returnedRental_notCounted() {
+        availabilityIndex.add(1L, 1L, START, END);
+        Assertions.assertEquals(1, availabilityIndex.countActiveRentals(1L, START, END));
+
+        availabilityIndex.remove(1L, 1L);
+
+        Assertions.assertEquals(0, availabilityIndex.countActiveRentals(1L, START, END));
+    }
+
+    @Test
+    @DisplayName("Should repair index entries that differ from database")
+    public void reconcile_indexOutOfSync_returnMismatchesAndRepair() {
+        availabilityIndex.add(1L, 1L, START, END);
+        availabilityIndex.add(2L, 2L, START, END);
+        Mockito.when(rentalRepository.findActiveRentalWindows()).thenReturn(List.of(
+                new RentalWindowDto(1L, 1L, START, END),
+                new RentalWindowDto(3L, 3L, START, END)
+        ));
+
+        Mockito.when(rentalRepository.findActiveRentalWindowsByCarId(2L)).thenReturn(List.of());
+        Mockito.when(rentalRepository.findActiveRentalWindowsByCarId(3L)).thenReturn(List.of(
+                new RentalWindowDto(3L, 3L, START, END)
+        ));
+
+        Assertions.assertEquals(2, availabilityIndex.reconcile());
+        Assertions.assertEquals(0, availabilityIndex.countActiveRentals(2L, START, END));
+        Assertions.assertEquals(1, availabilityIndex.countActiveRentals(3L, START, END));
+        Assertions.assertEquals(0, availabilityIndex.reconcile());
+    }
+
+    @Test
+    @DisplayName("Should keep rentals committed after the reconcile snapshot was read")
+    public void reconcile_rentalCommittedAfterSnapshot_keepsRental() {
+        Mockito.when(rentalRepository.findActiveRentalWindows()).thenReturn(List.of());
+        Mockito.when(rentalRepository.findActiveRentalWindowsByCarId(1L)).thenReturn(List.of(
+                new RentalWindowDto(1L, 1L, START, END)
+        ));
+        availabilityIndex.add(1L, 1L, START, END);
+
+        availabilityIndex.reconcile();
+
+        Assertions.assertEquals(1, availabilityIndex.countActiveRentals(1L, START, END));
+    }
+
+    @Test
+    @DisplayName("Should keep returned rental counted until the return commits")
+    public void remove_insideTransaction_appliedOnlyAfterCommit() {
+        availabilityIndex.add(1L, 1L, START, END);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            availabilityIndex.remove(1L, 1L);
+            Assertions.assertEquals(1, availabilityIndex.countActiveRentals(1L, START, END));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertEquals(0, availabilityIndex.countActiveRentals(1L, START, END));
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.carsharingapp.service;
+
+import org.example.carsharingapp.dto.RentalRequestDto;
+import org.example.carsharingapp.exception.NoAvailableCarsException;
+import org.example.carsharingapp.model.User;
+import org.example.carsharingapp.repository.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+public class RentalServiceConcurrencyTest {
+
+    private static final int THREADS = 300;
+    private static final int AVAILABLE_CARS = 5;
+
+    @MockitoBean
+    private NotificationService telegramService;
+
+    @MockitoBean
+    private StripePaymentService stripePaymentService;
+
+    @MockitoBean
+    private OverdueRentalChecker overdueRentalChecker;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private RentalAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private CarCache carCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should never overbook a car booked from hundreds of threads at once")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-users-roles-relations.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void addNewRental_concurrentRequestsForOneCar_noOverbooking() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2025, 9, 11, 10, 0);
+        LocalDateTime end = start.plusDays(3);
+
+        jdbcTemplate.update("update cars set available_cars = ? where id = 1", AVAILABLE_CARS);
+        carCache.invalidate(1L);
+        availabilityIndex.reload(1L);
+        User user = userRepository.findByEmail("one@test.com").orElseThrow();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(
+                                user, null, user.getAuthorities()));
+                startSignal.await();
+                try {
+                    rentalService.addNewRental(new RentalRequestDto(start, end, 1L));
+                    booked.incrementAndGet();
+                } catch (NoAvailableCarsException e) {
+                    rejected.incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Integer rentalRows = jdbcTemplate.queryForObject(
+                "select count(*) from rentals where car_id = 1", Integer.class);
+        Assertions.assertEquals(AVAILABLE_CARS, rentalRows);
+        Assertions.assertEquals(AVAILABLE_CARS, booked.get());
+        Assertions.assertEquals(THREADS - AVAILABLE_CARS, rejected.get());
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.carsharingapp.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.carsharingapp.dto.RentalRequestDto;
+import org.example.carsharingapp.dto.RentalResponseDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+import java.time.LocalDateTime;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class RentalServiceStatementCountTest {
+
+    @MockitoBean
+    private NotificationService telegramService;
+
+    @MockitoBean
+    private StripePaymentService stripePaymentService;
+
+    @MockitoBean
+    private OverdueRentalChecker overdueRentalChecker;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private RentalAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private CarCache carCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @WithUserDetails("one@test.com")
+    @DisplayName("Should book a rental with pending check, car lookup and insert only")
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-three-default-user.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-users-roles-relations.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/add-default-car.sql",
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD
+    )
+    @Sql(
+            scripts = "classpath:database/clear.sql",
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+    )
+    public void addNewRental_validRequest_executesThreeStatements() {
+        RentalRequestDto request = new RentalRequestDto(
+                LocalDateTime.of(2025, 9, 11, 10, 0, 0),
+                LocalDateTime.of(2025, 9, 15, 18, 0, 0),
+                1L
+        );
+        availabilityIndex.reload(1L);
+        carCache.invalidate(1L);
+        Statistics statistics = entityManagerFactory
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        RentalResponseDto result = rentalService.addNewRental(request);
+
+        Assertions.assertNotNull(result.id());
+        Assertions.assertEquals("test", result.brand());
+        Assertions.assertEquals("one@test.com", result.email());
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getEntityInsertCount());
+    }
+}
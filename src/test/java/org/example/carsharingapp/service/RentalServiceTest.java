@@ -1,14 +1,16 @@
 package org.example.carsharingapp.service;
 
+import org.example.carsharingapp.dto.CursorPageDto;
 import org.example.carsharingapp.dto.RentalRequestDto;
 import org.example.carsharingapp.dto.RentalResponseDto;
+import org.example.carsharingapp.exception.AccessDeniedException;
+import org.example.carsharingapp.exception.EntityNotFoundException;
 import org.example.carsharingapp.exception.NoAvailableCarsException;
+import org.example.carsharingapp.exception.PaymentException;
 import org.example.carsharingapp.exception.ReturnRentalException;
 import org.example.carsharingapp.mapper.RentalMapper;
 import org.example.carsharingapp.model.*;
-import org.example.carsharingapp.repository.CarRepository;
 import org.example.carsharingapp.repository.PaymentRepository;
-import org.example.carsharingapp.repository.PaymentStatusRepository;
 import org.example.carsharingapp.repository.RentalRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -17,15 +19,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @ExtendWith(MockitoExtension.class)
 public class RentalServiceTest {
@@ -34,7 +40,7 @@ public class RentalServiceTest {
     private RentalRepository rentalRepository;
 
     @Mock
-    private CarRepository carRepository;
+    private CarCache carCache;
 
     @Mock
     private UserService userService;
@@ -46,11 +52,20 @@ public class RentalServiceTest {
     private PaymentRepository paymentRepository;
 
     @Mock
-    private PaymentStatusRepository paymentStatusRepository;
+    private ReferenceDataRegistry referenceData;
 
     @Mock
     private TelegramNotificationService telegramNotificationService;
 
+    @Mock
+    private RentalAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private CarBookingLocks carBookingLocks = new CarBookingLocks(16);
+
     @InjectMocks
     private RentalServiceImpl rentalService;
 
@@ -88,16 +103,16 @@ public class RentalServiceTest {
                 "test@test.com", null, null, "true"
         );
 
-        Mockito.when(paymentRepository.findAllByUserId(user.getId()))
-                .thenReturn(Collections.emptyList());
-        Mockito.when(paymentStatusRepository.findByPaymentStatusName(PaymentStatusName.PENDING))
-                .thenReturn(Optional.of(paymentStatus));
-        Mockito.when(carRepository.findById(1L)).thenReturn(Optional.of(car));
-        Mockito.when(rentalRepository.findActiveRentalsForCar(car, end, start))
-                .thenReturn(Collections.emptyList());
+        runTransactionsInline();
+        Mockito.when(paymentRepository.existsByRentalUserIdAndStatusId(user.getId(), 1L))
+                .thenReturn(false);
+        Mockito.when(referenceData.paymentStatus(PaymentStatusName.PENDING))
+                .thenReturn(paymentStatus);
+        Mockito.when(carCache.findById(1L)).thenReturn(Optional.of(car));
+        Mockito.when(availabilityIndex.countActiveRentals(1L, start, end))
+                .thenReturn(0);
         Mockito.when(userService.getCurrentUser()).thenReturn(user);
         Mockito.when(rentalRepository.save(Mockito.any(Rental.class))).thenReturn(rental);
-        Mockito.when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
         Mockito.when(rentalMapper.toDto(rental)).thenReturn(expected);
 
         RentalResponseDto result = rentalService.addNewRental(request);
@@ -107,6 +122,7 @@ public class RentalServiceTest {
         Assertions.assertEquals(expected.brand(), result.brand());
 
         Assertions.assertEquals(expected.model(), result.model());
+        Mockito.verify(rentalRepository, Mockito.never()).findById(Mockito.anyLong());
     }
 
     @Test
@@ -129,15 +145,41 @@ public class RentalServiceTest {
         paymentStatus.setPaymentStatusName(PaymentStatusName.PAID);
 
 
+        runTransactionsInline();
         Mockito.when(userService.getCurrentUser()).thenReturn(mockUser);
-        Mockito.when(paymentStatusRepository.findByPaymentStatusName(PaymentStatusName.PENDING))
-                .thenReturn(Optional.of(paymentStatus));
-        Mockito.when(carRepository.findById(1L)).thenReturn(Optional.of(car));
-        Mockito.when(rentalRepository.findActiveRentalsForCar(car, end, start))
-                .thenReturn(List.of(new Rental()));
+        Mockito.when(referenceData.paymentStatus(PaymentStatusName.PENDING))
+                .thenReturn(paymentStatus);
+        Mockito.when(carCache.findById(1L)).thenReturn(Optional.of(car));
+        Mockito.when(availabilityIndex.countActiveRentals(1L, start, end))
+                .thenReturn(1);
 
         Assertions.assertThrows(NoAvailableCarsException.class,
                 () -> rentalService.addNewRental(request));
+        Mockito.verify(availabilityIndex).reload(1L);
+    }
+
+    @Test
+    @DisplayName("Should throw PaymentException when user has pending payment")
+    public void addNewRental_pendingPayment_throwPaymentException() {
+        LocalDateTime start = LocalDateTime.now();
+        RentalRequestDto request = new RentalRequestDto(start, start.plusDays(1), 1L);
+
+        User user = new User();
+        user.setId(1L);
+
+        PaymentStatus pendingStatus = new PaymentStatus();
+        pendingStatus.setId(1L);
+        pendingStatus.setPaymentStatusName(PaymentStatusName.PENDING);
+
+        runTransactionsInline();
+        Mockito.when(userService.getCurrentUser()).thenReturn(user);
+        Mockito.when(referenceData.paymentStatus(PaymentStatusName.PENDING))
+                .thenReturn(pendingStatus);
+        Mockito.when(paymentRepository.existsByRentalUserIdAndStatusId(1L, 1L)).thenReturn(true);
+
+        Assertions.assertThrows(PaymentException.class,
+                () -> rentalService.addNewRental(request));
+        Mockito.verifyNoInteractions(carCache);
     }
 
     @Test
@@ -212,16 +254,51 @@ public class RentalServiceTest {
         Assertions.assertEquals("Audi", result.getContent().get(0).brand());
     }
 
+    @Test
+    @DisplayName("Should return rentals after cursor with cursor to next slice")
+    public void getRentalByCurrentUser_withCursor_returnNextCursor() {
+        User user = new User();
+        user.setId(1L);
+
+        Rental rental = new Rental();
+        rental.setId(7L);
+        rental.setUser(user);
+
+        RentalResponseDto dto = new RentalResponseDto(
+                7L, null, null, "Audi", "A4",
+                "current@test.com", "Current", "User", "true"
+        );
+        String cursor = PageCursors.encode(3L);
+
+        Mockito.when(userService.getCurrentUser()).thenReturn(user);
+        Mockito.when(rentalRepository.findAllByUserIdAndIdGreaterThanOrderByIdAsc(
+                        1L, 3L, Pageable.ofSize(1)))
+                .thenReturn(new SliceImpl<>(List.of(rental), Pageable.ofSize(1), true));
+        Mockito.when(rentalMapper.toDto(rental)).thenReturn(dto);
+
+        CursorPageDto<RentalResponseDto> result =
+                rentalService.getRentalByCurrentUser(cursor, 1);
+
+        Assertions.assertEquals(List.of(dto), result.content());
+        Assertions.assertTrue(result.hasNext());
+        Assertions.assertEquals(7L, PageCursors.decode(result.nextCursor()));
+    }
+
     @Test
     @DisplayName("Should return rental when owner returns it")
     public void returnRentalByRentalId_owner_returnsRentalResponseDto() {
         User user = new User();
         user.setId(1L);
         user.setEmail("user@test.com");
+        user.setRoles(Set.of());
+
+        Car car = new Car();
+        car.setId(1L);
 
         Rental rental = new Rental();
         rental.setId(1L);
         rental.setUser(user);
+        rental.setCar(car);
 
         RentalResponseDto expected = new RentalResponseDto(
                 1L, rental.getRentalDate(), rental.getReturnDate(),
@@ -233,33 +310,79 @@ public class RentalServiceTest {
                 "false"
         );
 
-        Mockito.when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
-        Mockito.when(rentalRepository.save(Mockito.any(Rental.class))).thenReturn(rental);
+        Mockito.when(userService.getCurrentUser()).thenReturn(user);
+        Mockito.when(rentalRepository.markReturned(
+                Mockito.eq(1L), Mockito.eq(1L), Mockito.eq(false),
+                Mockito.any(LocalDateTime.class))).thenReturn(1);
+        Mockito.when(rentalRepository.findWithUserAndCarById(1L)).thenReturn(Optional.of(rental));
         Mockito.when(rentalMapper.toDto(rental)).thenReturn(expected);
 
         RentalResponseDto result = rentalService.returnRentalByRentalId(1L);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(expected.id(), result.id());
+        Mockito.verify(availabilityIndex).remove(1L, 1L);
     }
 
     @Test
-    @DisplayName("Should return false for isOwner if user is not owner")
-    public void isOwner_notOwner_returnsFalse() {
+    @DisplayName("Should reject returning a rental that has already been returned")
+    public void returnRentalByRentalId_alreadyReturned_throwsReturnRentalException() {
         User user = new User();
-        user.setEmail("user1@test.com");
+        user.setId(1L);
+        user.setRoles(Set.of());
 
-        User rentalOwner = new User();
-        rentalOwner.setEmail("owner@test.com");
+        Mockito.when(userService.getCurrentUser()).thenReturn(user);
+        Mockito.when(rentalRepository.markReturned(
+                Mockito.eq(1L), Mockito.eq(1L), Mockito.eq(false),
+                Mockito.any(LocalDateTime.class))).thenReturn(0);
+        Mockito.when(rentalRepository.findUserIdById(1L)).thenReturn(Optional.of(1L));
+
+        Assertions.assertThrows(ReturnRentalException.class,
+                () -> rentalService.returnRentalByRentalId(1L));
+        Mockito.verifyNoInteractions(availabilityIndex);
+    }
 
-        Rental rental = new Rental();
-        rental.setId(1L);
-        rental.setUser(rentalOwner);
+    @Test
+    @DisplayName("Should deny returning a rental of another user")
+    public void returnRentalByRentalId_notOwner_throwsAccessDeniedException() {
+        User user = new User();
+        user.setId(1L);
+        user.setRoles(Set.of());
+
+        Mockito.when(userService.getCurrentUser()).thenReturn(user);
+        Mockito.when(rentalRepository.markReturned(
+                Mockito.eq(1L), Mockito.eq(1L), Mockito.eq(false),
+                Mockito.any(LocalDateTime.class))).thenReturn(0);
+        Mockito.when(rentalRepository.findUserIdById(1L)).thenReturn(Optional.of(2L));
 
-        Mockito.when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        Assertions.assertThrows(AccessDeniedException.class,
+                () -> rentalService.returnRentalByRentalId(1L));
+    }
 
-        boolean result = rentalService.isOwner(1L, user.getEmail());
+    @Test
+    @DisplayName("Should throw when returning a rental that does not exist")
+    public void returnRentalByRentalId_missingRental_throwsEntityNotFoundException() {
+        Role managerRole = new Role();
+        managerRole.setName(RoleName.ROLE_MANAGER);
+
+        User manager = new User();
+        manager.setId(1L);
+        manager.setRoles(Set.of(managerRole));
+
+        Mockito.when(userService.getCurrentUser()).thenReturn(manager);
+        Mockito.when(rentalRepository.markReturned(
+                Mockito.eq(1L), Mockito.eq(1L), Mockito.eq(true),
+                Mockito.any(LocalDateTime.class))).thenReturn(0);
+        Mockito.when(rentalRepository.findUserIdById(1L)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(EntityNotFoundException.class,
+                () -> rentalService.returnRentalByRentalId(1L));
+    }
 
-        Assertions.assertFalse(result);
+    private void runTransactionsInline() {
+        Mockito.when(transactionTemplate.execute(Mockito.any()))
+                .thenAnswer(invocation -> invocation
+                        .<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
     }
 }
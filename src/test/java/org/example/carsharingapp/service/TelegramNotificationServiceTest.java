@@ -0,0 +1,103 @@
+package org.example.carsharingapp.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TelegramNotificationServiceTest {
+
+    private static final long SLOW_RESPONSE_MS = 500;
+    private static final int MESSAGES = 50;
+
+    private final List<String> receivedBodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresToReturn = new AtomicInteger();
+
+    private HttpServer telegramStub;
+    private TelegramNotificationService notificationService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        telegramStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        telegramStub.createContext("/bottest/sendMessage", exchange -> {
+            try {
+                Thread.sleep(SLOW_RESPONSE_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String body = new String(
+                    exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            int status = failuresToReturn.getAndDecrement() > 0 ? 500 : 200;
+            if (status == 200) {
+                receivedBodies.add(body);
+            }
+            byte[] response = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        telegramStub.start();
+
+        String apiUrl = "http://localhost:" + telegramStub.getAddress().getPort();
+        notificationService = new TelegramNotificationService(
+                "test", "chat", apiUrl, 100, 20, 3, 10);
+        notificationService.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        notificationService.stop();
+        telegramStub.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should not block caller when Telegram responds slowly")
+    public void sendNotification_slowTelegram_returnsImmediatelyAndBatches() throws Exception {
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            notificationService.sendNotification("message-" + i);
+        }
+        long callerLatencyMs = (System.nanoTime() - startNanos) / 1_000_000;
+
+        Assertions.assertTrue(callerLatencyMs < SLOW_RESPONSE_MS,
+                "Sending " + MESSAGES + " notifications took " + callerLatencyMs + " ms");
+
+        awaitDelivered(MESSAGES);
+        Assertions.assertTrue(receivedBodies.size() < MESSAGES,
+                "Expected batched requests but got " + receivedBodies.size());
+    }
+
+    @Test
+    @DisplayName("Should retry failed Telegram requests")
+    public void sendNotification_telegramFailsTwice_deliveredAfterRetry() throws Exception {
+        failuresToReturn.set(2);
+
+        notificationService.sendNotification("message-0");
+
+        awaitDelivered(1);
+        Assertions.assertEquals(1, receivedBodies.size());
+    }
+
+    private void awaitDelivered(int expectedMessages) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (countDelivered() < expectedMessages && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(expectedMessages, countDelivered());
+    }
+
+    private long countDelivered() {
+        return receivedBodies.stream()
+                .mapToLong(body -> body.split("message-", -1).length - 1)
+                .sum();
+    }
+}
@@ -11,6 +11,7 @@ import org.example.carsharingapp.model.RoleName;
 import org.example.carsharingapp.model.User;
 import org.example.carsharingapp.repository.RoleRepository;
 import org.example.carsharingapp.repository.UserRepository;
+import org.example.carsharingapp.security.UserPrincipalCache;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -22,10 +23,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 @ExtendWith(MockitoExtension.class)
 public class UserServiceTest {
@@ -42,6 +45,12 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private ReferenceDataRegistry referenceData;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -82,8 +91,7 @@ public class UserServiceTest {
         );
 
         Mockito.when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.empty());
-        Mockito.when(roleRepository.findByName(RoleName.ROLE_CUSTOMER))
-                .thenReturn(Optional.of(roleCustomer));
+        Mockito.when(referenceData.role(RoleName.ROLE_CUSTOMER)).thenReturn(roleCustomer);
         Mockito.when(userRepository.save(user)).thenReturn(user);
         Mockito.when(userMapper.toModel(requestDto)).thenReturn(user);
         Mockito.when(passwordEncoder.encode("123456")).thenReturn("encodedPassword");
@@ -123,9 +131,44 @@ public class UserServiceTest {
         Assertions.assertEquals(expected.email(), result.email());
     }
 
+    @Test
+    @DisplayName("Should load current user lazily when authenticated from token claims")
+    public void shouldLoadCurrentUserForStatelessPrincipal() {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("test@test.com");
+
+        UserDetails principal = org.springframework.security.core.userdetails.User
+                .withUsername("test@test.com")
+                .password("")
+                .authorities("ROLE_CUSTOMER")
+                .build();
+
+        Mockito.when(securityContext.getAuthentication()).thenReturn(authentication);
+        Mockito.when(authentication.getPrincipal()).thenReturn(principal);
+        Mockito.when(authentication.getName()).thenReturn("test@test.com");
+        SecurityContextHolder.setContext(securityContext);
+
+        Mockito.when(userPrincipalCache.get(Mockito.eq("test@test.com"), Mockito.any()))
+                .thenAnswer(invocation -> invocation
+                        .<Function<String, UserDetails>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
+        Mockito.when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(user));
+
+        User result = userService.getCurrentUser();
+
+        Assertions.assertSame(user, result);
+    }
+
     @Test
     @DisplayName("Should update current user's profile info")
     public void shouldUpdateUserProfileInfo() {
+        User principal = new User();
+        principal.setId(1L);
+        principal.setEmail("old@test.com");
+        principal.setFirstName("Old");
+        principal.setLastName("Name");
+
         User user = new User();
         user.setId(1L);
         user.setEmail("old@test.com");
@@ -147,9 +190,10 @@ public class UserServiceTest {
         );
 
         Mockito.when(securityContext.getAuthentication()).thenReturn(authentication);
-        Mockito.when(authentication.getPrincipal()).thenReturn(user);
+        Mockito.when(authentication.getPrincipal()).thenReturn(principal);
         SecurityContextHolder.setContext(securityContext);
 
+        Mockito.when(userRepository.findByIdWithRoles(1L)).thenReturn(Optional.of(user));
         Mockito.when(userRepository.save(user)).thenReturn(updatedUser);
         Mockito.when(userMapper.toDto(updatedUser)).thenReturn(expected);
 
@@ -159,6 +203,10 @@ public class UserServiceTest {
         Assertions.assertEquals(expected.email(), result.email());
         Assertions.assertEquals(expected.firstName(), result.firstName());
         Assertions.assertEquals(expected.lastName(), result.lastName());
+        Mockito.verify(userPrincipalCache).invalidate("old@test.com");
+        Mockito.verify(userPrincipalCache).invalidate("new@test.com");
+        Assertions.assertEquals("old@test.com", principal.getEmail());
+        Assertions.assertEquals("Old", principal.getFirstName());
     }
 
     @Test
@@ -198,6 +246,7 @@ public class UserServiceTest {
 
         Assertions.assertNotNull(result);
         Assertions.assertArrayEquals(expected.roles(), result.roles());
+        Mockito.verify(userPrincipalCache).invalidate(updatedUser.getEmail());
     }
 
 
@@ -0,0 +1,7 @@
+insert into rentals (id, rental_date, return_date, actual_return_date, car_id, user_id)
+values (1,
+        '2025-09-11 10:00:00',
+        '2025-09-15 18:00:00',
+        '2025-09-15 12:00:00',
+        1,
+        1);
@@ -1,3 +1,4 @@
+delete from payment_status_events;
 delete from payments;
 delete from rentals;
 delete from users_roles;